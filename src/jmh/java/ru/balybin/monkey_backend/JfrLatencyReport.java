@@ -0,0 +1,95 @@
+package ru.balybin.monkey_backend;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сводка записи JFR, снятой с профилем {@code jfr/auth.jfc}: по каждому этапу (проверка токена, выпуск токена,
+ * BCrypt по операциям, запросы по методам репозиториев) и исходу - число событий, суммарное время и его доля,
+ * перцентили задержки и средний размер пачки. События JDK в записи игнорируются.
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.main=ru.balybin.monkey_backend.JfrLatencyReport -Djmh.args="auth.jfr"
+ * </pre>
+ */
+public class JfrLatencyReport {
+
+    private static final String PREFIX = "ru.balybin.monkey_backend.";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: JfrLatencyReport <recording.jfr>");
+            System.exit(1);
+        }
+        Map<String, Stage> stages = new TreeMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(Path.of(args[0]))) {
+            String type = event.getEventType().getName();
+            if (type.startsWith(PREFIX)) {
+                stages.computeIfAbsent(key(type.substring(PREFIX.length()), event), k -> new Stage())
+                        .add(event.getDuration().toNanos(), event.getInt("batchSize"));
+            }
+        }
+        if (stages.isEmpty()) {
+            System.out.println("No auth events in " + args[0] + ", was the recording started with auth.jfc?");
+            return;
+        }
+
+        long total = stages.values().stream().mapToLong(stage -> stage.totalNanos).sum();
+        System.out.printf("%-58s %8s %10s %6s %9s %9s %9s %7s%n",
+                "stage", "count", "total ms", "share", "p50 ms", "p99 ms", "max ms", "batch");
+        List<Map.Entry<String, Stage>> byTotal = new ArrayList<>(stages.entrySet());
+        byTotal.sort(Comparator.comparingLong((Map.Entry<String, Stage> e) -> e.getValue().totalNanos).reversed());
+        for (Map.Entry<String, Stage> entry : byTotal) {
+            Stage stage = entry.getValue();
+            long[] sorted = stage.sorted();
+            System.out.printf("%-58s %8d %10.1f %5.1f%% %9.3f %9.3f %9.3f %7.1f%n",
+                    entry.getKey(), sorted.length, stage.totalNanos / 1e6, 100.0 * stage.totalNanos / total,
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6,
+                    (double) stage.batchTotal / sorted.length);
+        }
+    }
+
+    //этап + то,что различает вызовы внутри него + исход
+    private static String key(String type, RecordedEvent event) {
+        String detail = switch (type) {
+            case "PasswordHash" -> "." + event.getString("operation");
+            case "RepositoryCall" -> " " + event.getString("repository") + "." + event.getString("method");
+            case "TokenVerification" -> event.getBoolean("cached") ? " cached" : " signature";
+            default -> "";
+        };
+        return type + detail + " [" + event.getString("outcome") + "]";
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static class Stage {
+        private long[] durations = new long[64];
+        private int count;
+        private long totalNanos;
+        private long batchTotal;
+
+        void add(long nanos, int batchSize) {
+            if (count == durations.length) {
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            durations[count++] = nanos;
+            totalNanos += nanos;
+            batchTotal += batchSize;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(durations, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ru.balybin.monkey_backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузка на запущенный сервис для сравнения режимов потоков (spring.threads.virtual.enabled).
+ * Каждый из {@code concurrency} клиентов шлёт запросы подряд без пауз, в конце печатаются
+ * пропускная способность и перцентили задержки.
+ * <p>
+ * Сценарии: {@code batch} - POST /api/users/batch со случайными id (промах кэша, один запрос в базу
+ * на каждый вызов), {@code profile} - GET /api/users/profile (только фильтр и claims, без базы).
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Dbench.main=ru.balybin.monkey_backend.LoadDriver \
+ *     -Djmh.args="http://localhost:5252 batch 500 30"
+ * </pre>
+ */
+public class LoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:5252";
+        String scenario = args.length > 1 ? args[1] : "batch";
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        ObjectMapper mapper = new ObjectMapper();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        String email = "load-" + UUID.randomUUID() + "@example.com";
+        HttpResponse<String> registered = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(
+                        new RegisterRequest(email, "password123"))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (registered.statusCode() != 201) {
+            throw new IllegalStateException("Register failed: " + registered.statusCode() + " " + registered.body());
+        }
+        String token = "Bearer " + mapper.readValue(registered.body(), AuthResponse.class).getAccessToken();
+
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(pool.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = request(baseUrl, scenario, token);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = workers.stream().map(LoadDriver::join).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("scenario=%s concurrency=%d duration=%ds%n", scenario, concurrency, seconds);
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s%n",
+                all.length, errors.get(), all.length / (double) seconds);
+        if (all.length > 0) {
+            System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                    percentile(all, 0.999), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static HttpRequest request(String baseUrl, String scenario, String token) {
+        if ("profile".equals(scenario)) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/profile"))
+                    .header("Authorization", token)
+                    .GET()
+                    .build();
+        }
+        String ids = "[\"" + UUID.randomUUID() + "\",\"" + UUID.randomUUID() + "\"]";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/batch"))
+                .header("Authorization", token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ids))
+                .build();
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр,через который проходит каждый запрос. {@code cached=false} - полная проверка подписи
+ * на каждом вызове, {@code cached=true} - повторный токен из {@link VerifiedTokenCache}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtTokenValidatorBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private JwtTokenValidator validator;
+    private MockHttpServletRequest validRequest;
+    private MockHttpServletRequest invalidRequest;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        TokenProvider tokenProvider = new TokenProvider(TokenProviderBenchmark.SECRET);
+        //без отзывов: проверка версии - поиск в пустой map,проверка jti - промах фильтра без базы
+        validator = new JwtTokenValidator(tokenProvider,
+                new VerifiedTokenCache(cached, 10_000, new SimpleMeterRegistry()),
+                new TokenVersions(null, 0, new SimpleMeterRegistry()),
+                new RevokedAccessTokens(null, 0, 10_000, 0.001, new SimpleMeterRegistry()),
+                new AuthMetrics(new SimpleMeterRegistry()));
+        String token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("bench@example.com", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER")), UUID.randomUUID(), 0L);
+
+        validRequest = new MockHttpServletRequest("GET", "/api/users/profile");
+        validRequest.addHeader(JwtConstant.JWT_HEADER, "Bearer " + token);
+        invalidRequest = new MockHttpServletRequest("GET", "/api/users/profile");
+        invalidRequest.addHeader(JwtConstant.JWT_HEADER, "Bearer " + token.substring(0, token.length() - 2) + "xx");
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> this.blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Benchmark
+    public void validToken() throws Exception {
+        validator.doFilterInternal(validRequest, response, chain);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void invalidSignature() throws Exception {
+        response.reset();
+        validator.doFilterInternal(invalidRequest, response, chain);
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.balybin.monkey_backend.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.balybin.monkey_backend.model.TimeOrderedUuid;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка неотозванного токена в {@link RevokedTokenFilter}, когда в корзине его часа уже {@code revoked}
+ * отзывов. Это цена, которую платит каждый запрос с токеном, у которого есть {@code jti}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RevokedTokenFilterBenchmark {
+
+    @Param({"0", "10000"})
+    public int revoked;
+
+    private RevokedTokenFilter filter;
+    private UUID[] lookups;
+    private Instant expiresAt;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        filter = new RevokedTokenFilter(10_000, 0.001);
+        expiresAt = Instant.now().plusSeconds(1800);
+        for (int i = 0; i < revoked; i++) {
+            filter.add(TimeOrderedUuid.next(), expiresAt);
+        }
+        lookups = new UUID[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = TimeOrderedUuid.next();
+        }
+    }
+
+    @Benchmark
+    public boolean notRevoked() {
+        next = (next + 1) & (lookups.length - 1);
+        return filter.mightContain(lookups[next], expiresAt);
+    }
+}
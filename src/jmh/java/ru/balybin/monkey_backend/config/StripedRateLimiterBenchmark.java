@@ -0,0 +1,55 @@
+package ru.balybin.monkey_backend.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена отказа в {@link StripedRateLimiter} при переборе: 10 000 уже исчерпанных ключей, по потоку на ядро,
+ * потоки бьют по разным ключам. Сравнивать есть с чем - {@code PasswordEncoderBenchmark} (BCrypt, десятки
+ * миллисекунд).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class StripedRateLimiterBenchmark {
+
+    private StripedRateLimiter limiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        limiter = new StripedRateLimiter(1, Duration.ofHours(1), 100_000);
+        keys = new String[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "user" + i + "@example.com";
+            limiter.tryAcquire(keys[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public long rejected(Cursor cursor) {
+        cursor.next = (cursor.next + 1) % keys.length;
+        return limiter.tryAcquire(keys[cursor.next]);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.balybin.monkey_backend.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выпуск и разбор access-токена: подпись HMAC-SHA и разбор claims.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenProviderBenchmark {
+
+    static final String SECRET = "benchmarkSecretKey123456789012345678901234567890";
+
+    private TokenProvider tokenProvider;
+    private Authentication authentication;
+    private UUID userId;
+    private String bearerToken;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new TokenProvider(SECRET);
+        authentication = new UsernamePasswordAuthenticationToken("bench@example.com", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+        userId = UUID.randomUUID();
+        bearerToken = "Bearer " + tokenProvider.generateToken(authentication, userId, 3L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication, userId, 3L);
+    }
+
+    @Benchmark
+    public String getEmailFromToken() {
+        return tokenProvider.getEmailFromToken(bearerToken);
+    }
+
+    @Benchmark
+    public UUID getUserIdFromToken() {
+        return tokenProvider.getUserIdFromToken(bearerToken);
+    }
+}
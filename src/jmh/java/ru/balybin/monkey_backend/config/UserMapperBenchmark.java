@@ -0,0 +1,66 @@
+package ru.balybin.monkey_backend.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.DTO.response.UserProfileResponse;
+import ru.balybin.monkey_backend.model.User;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования сущность <-> DTO, которые выполняются на каждом ответе с пользователем.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserMapperBenchmark {
+
+    private UserMapper userMapper;
+    private User user;
+    private RegisterRequest registerRequest;
+    private UpdateProfileRequest updateRequest;
+
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapper();
+        user = new User(UUID.randomUUID(), "bench@example.com", "encodedPassword");
+        registerRequest = new RegisterRequest("bench@example.com", "password123");
+        updateRequest = new UpdateProfileRequest("changed@example.com");
+    }
+
+    @Benchmark
+    public UserInfoResponse toInfoResponse() {
+        return userMapper.toInfoResponse(user);
+    }
+
+    @Benchmark
+    public UserProfileResponse toProfileResponse() {
+        return userMapper.toProfileResponse(user);
+    }
+
+    @Benchmark
+    public User toEntity() {
+        return userMapper.toEntity(registerRequest);
+    }
+
+    @Benchmark
+    public User updateUserFromRequest() {
+        userMapper.updateUserFromRequest(user, updateRequest);
+        return user;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.balybin.monkey_backend.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Вставка в таблицу формы {@code refresh_tokens} с первичным ключом UUID v4 ({@code random}) и v7 ({@code time}),
+ * когда в таблице уже {@code rows} строк. Одна операция - пачка {@code batch} строк в одной транзакции.
+ * Разница видна, только когда индекс перестаёт помещаться в кэш базы, поэтому по умолчанию таблица заполняется
+ * десятками миллионов строк; заполнение идёт один раз на trial и занимает минуты.
+ * <p>
+ * По умолчанию база - файловый H2 в {@code target}, на Postgres:
+ * <pre>
+ * -Djmh.args="PrimaryKeyInsertBenchmark -p jdbcUrl=jdbc:postgresql://localhost:5432/bench?reWriteBatchedInserts=true
+ *     -p user=postgres -p password=postgres"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final String TABLE = "pk_insert_bench";
+
+    @Param({"random", "time"})
+    public String scheme;
+
+    @Param({"10000000", "30000000"})
+    public int rows;
+
+    @Param({"1000"})
+    public int batch;
+
+    @Param({"jdbc:h2:file:./target/pk-insert-bench;CACHE_SIZE=262144"})
+    public String jdbcUrl;
+
+    @Param({"sa"})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ids = "time".equals(scheme) ? TimeOrderedUuid::next : UUID::randomUUID;
+        connection = DriverManager.getConnection(jdbcUrl, user, password);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (id UUID PRIMARY KEY, token VARCHAR(64) NOT NULL, " +
+                    "user_id UUID NOT NULL, expires_at TIMESTAMP WITH TIME ZONE NOT NULL)");
+        }
+        connection.commit();
+        insert = connection.prepareStatement("INSERT INTO " + TABLE + " (id, token, user_id, expires_at) " +
+                "VALUES (?, ?, ?, ?)");
+        //заполняем тем же генератором:у v7 таблица и так растёт в конец,у v4 ключи уже разбросаны по индексу
+        for (int filled = 0; filled < rows; filled += batch) {
+            insertBatch();
+        }
+    }
+
+    @Benchmark
+    public int insertBatch() throws SQLException {
+        Timestamp expiresAt = Timestamp.from(Instant.now().plusSeconds(7 * 24 * 3600));
+        for (int i = 0; i < batch; i++) {
+            insert.setObject(1, ids.get());
+            insert.setString(2, UUID.randomUUID().toString());
+            insert.setObject(3, UUID.randomUUID());
+            insert.setTimestamp(4, expiresAt);
+            insert.addBatch();
+        }
+        int inserted = insert.executeBatch().length;
+        connection.commit();
+        return inserted;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + TABLE);
+        }
+        connection.commit();
+        connection.close();
+    }
+}
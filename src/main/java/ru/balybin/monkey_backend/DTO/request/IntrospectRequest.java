@@ -0,0 +1,37 @@
+package ru.balybin.monkey_backend.DTO.request;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class IntrospectRequest {
+
+    @NotNull(message = "Tokens are required")
+    private List<String> tokens;
+
+    //проверять ли,что пользователь токена ещё существует (это уже запрос в базу)
+    private boolean checkRevocation;
+
+    public IntrospectRequest() {}
+
+    public IntrospectRequest(List<String> tokens, boolean checkRevocation) {
+        this.tokens = tokens;
+        this.checkRevocation = checkRevocation;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    public boolean isCheckRevocation() {
+        return checkRevocation;
+    }
+
+    public void setCheckRevocation(boolean checkRevocation) {
+        this.checkRevocation = checkRevocation;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.balybin.monkey_backend.DTO.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class RevokeRequest {
+
+    @NotBlank(message = "Access token is required")
+    private String accessToken;
+
+    public RevokeRequest() {}
+
+    public RevokeRequest(String accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+    }
+}
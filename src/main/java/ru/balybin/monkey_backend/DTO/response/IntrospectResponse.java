@@ -0,0 +1,22 @@
+package ru.balybin.monkey_backend.DTO.response;
+
+import java.util.List;
+
+/** Результаты проверки в том же порядке,что и токены в запросе. */
+public class IntrospectResponse {
+    private List<TokenIntrospection> results;
+
+    public IntrospectResponse() {}
+
+    public IntrospectResponse(List<TokenIntrospection> results) {
+        this.results = results;
+    }
+
+    public List<TokenIntrospection> getResults() {
+        return results;
+    }
+
+    public void setResults(List<TokenIntrospection> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.balybin.monkey_backend.DTO.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Результат проверки одного токена. У невалидного токена есть только {@code active=false},
+ * {@code exp} - секунды epoch, как в RFC 7662.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospection {
+
+    private boolean active;
+    private UUID userId;
+    private String email;
+    private List<String> authorities;
+    private Long exp;
+
+    public TokenIntrospection() {}
+
+    public TokenIntrospection(boolean active, UUID userId, String email, List<String> authorities, Long exp) {
+        this.active = active;
+        this.userId = userId;
+        this.email = email;
+        this.authorities = authorities;
+        this.exp = exp;
+    }
+
+    public static TokenIntrospection inactive() {
+        return new TokenIntrospection(false, null, null, null, null);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<String> getAuthorities() {
+        return authorities;
+    }
+
+    public void setAuthorities(List<String> authorities) {
+        this.authorities = authorities;
+    }
+
+    public Long getExp() {
+        return exp;
+    }
+
+    public void setExp(Long exp) {
+        this.exp = exp;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.balybin.monkey_backend.DTO.response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Результат пакетного поиска: найденные пользователи в порядке запроса и id,которых нет в базе.
+ */
+public class UserBatchResponse {
+    private List<UserInfoResponse> users;
+    private List<UUID> missingIds;
+
+    public UserBatchResponse() {}
+
+    public UserBatchResponse(List<UserInfoResponse> users, List<UUID> missingIds) {
+        this.users = users;
+        this.missingIds = missingIds;
+    }
+
+    public List<UserInfoResponse> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserInfoResponse> users) {
+        this.users = users;
+    }
+
+    public List<UUID> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<UUID> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
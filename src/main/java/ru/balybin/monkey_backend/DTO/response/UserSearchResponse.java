@@ -0,0 +1,34 @@
+package ru.balybin.monkey_backend.DTO.response;
+
+import java.util.List;
+
+/**
+ * Страница результатов поиска. {@code next} - курсор следующей страницы,{@code null} на последней.
+ */
+public class UserSearchResponse {
+    private List<UserInfoResponse> users;
+    private String next;
+
+    public UserSearchResponse() {}
+
+    public UserSearchResponse(List<UserInfoResponse> users, String next) {
+        this.users = users;
+        this.next = next;
+    }
+
+    public List<UserInfoResponse> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserInfoResponse> users) {
+        this.users = users;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Адаптивный предел одновременных запросов одного класса эндпоинтов (AIMD по задержке).
+ * <p>
+ * Сравниваются две средние задержки: короткая (последние ~10 ответов) и длинная (~1000 ответов). Минимум как
+ * опорная задержка не подходит: логин с неизвестным email или невалидным телом отвечает за миллисекунду без
+ * BCrypt, и по нему любой настоящий логин выглядел бы медленным. Короткая средняя выше длинной в
+ * {@code tolerance} раз или ответ 503 от пула BCrypt - признак очереди: предел умножается на {@code backoff},
+ * не чаще раза за «круг» из {@code limit} ответов, как окно TCP. Нормальный ответ при загрузке хотя бы в
+ * половину предела прибавляет {@code 1/limit}, то есть единицу за круг. Лишние запросы получают отказ сразу,
+ * не занимая поток и очередь BCrypt.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_ALPHA = 0.1;
+    private static final double LONG_ALPHA = 0.001;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoff;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile int limit;
+    private double exactLimit;
+    private long samples;
+    private double shortNanos;
+    private double longNanos;
+    private int releasesSinceDecrease;
+
+    public AdaptiveConcurrencyLimit(String endpoint, int initialLimit, int minLimit, int maxLimit,
+                                    double tolerance, double backoff, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min <= max, got " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+        this.exactLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) exactLimit;
+        this.rejected = Counter.builder("auth.concurrency.rejected")
+                .description("Requests shed because the endpoint was at its concurrency limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("auth.concurrency.limit", this, AdaptiveConcurrencyLimit::limit)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("auth.concurrency.in_flight", this, AdaptiveConcurrencyLimit::inFlight)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    /** {@code false} - предел исчерпан, запрос нужно отклонить; при {@code true} обязателен {@link #release}. */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * @param latencyNanos сколько занял запрос
+     * @param overloaded   запрос отклонён ниже по цепочке из-за перегрузки (очередь BCrypt полна)
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        adjust(latencyNanos, overloaded, inFlightBefore);
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    //один раз на запрос к BCrypt,на фоне десятков миллисекунд хэширования монитор незаметен
+    private synchronized void adjust(long latencyNanos, boolean overloaded, int inFlightBefore) {
+        releasesSinceDecrease++;
+        //быстрый отказ пула BCrypt ничего не говорит о задержке,только о перегрузке
+        if (!overloaded) {
+            samples++;
+            if (samples == 1) {
+                shortNanos = latencyNanos;
+                longNanos = latencyNanos;
+            } else {
+                shortNanos += (latencyNanos - shortNanos) * SHORT_ALPHA;
+                //первые ответы усредняются целиком,дальше экспоненциально
+                longNanos += (latencyNanos - longNanos) * Math.max(LONG_ALPHA, 1.0 / samples);
+            }
+        }
+        if (overloaded || shortNanos > longNanos * tolerance) {
+            if (releasesSinceDecrease >= limit) {
+                exactLimit = Math.max(minLimit, exactLimit * backoff);
+                releasesSinceDecrease = 0;
+            }
+        } else if (inFlightBefore * 2 >= limit) {
+            //при малой загрузке задержка ничего не говорит о том,выдержит ли сервис больше
+            exactLimit = Math.min(maxLimit, exactLimit + 1 / exactLimit);
+        }
+        limit = (int) exactLimit;
+    }
+}
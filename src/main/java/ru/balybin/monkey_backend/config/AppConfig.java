@@ -1,43 +1,75 @@
 package ru.balybin.monkey_backend.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.DelegatingAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
-import org.springframework.web.cors.CorsConfigurationSource;
+import ru.balybin.monkey_backend.controller.UserController;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 
 @Configuration
 public class AppConfig {
 
     @Bean
-    public JwtTokenValidator jwtTokenValidator(@Value("${auth.jwt.secret}") String jwtSecret) {
-        return new JwtTokenValidator(jwtSecret);
+    @Profile("!reactive")
+    public JwtTokenValidator jwtTokenValidator(TokenProvider tokenProvider, VerifiedTokenCache verifiedTokenCache,
+                                               TokenVersions tokenVersions,
+                                               RevokedAccessTokens revokedAccessTokens,
+                                               AuthMetrics authMetrics) {
+        return new JwtTokenValidator(tokenProvider, verifiedTokenCache, tokenVersions, revokedAccessTokens,
+                authMetrics);
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtTokenValidator jwtTokenValidator) throws Exception {
+    @Profile("!reactive")
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimits concurrencyLimits) {
+        return new ConcurrencyLimitFilter(concurrencyLimits);
+    }
+
+    @Bean
+    @Profile("!reactive")
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtTokenValidator jwtTokenValidator,
+                                                   ConcurrencyLimitFilter concurrencyLimitFilter,
+                                                   @Value("${server.port:8080}") int serverPort,
+                                                   @Value("${management.server.port:-1}") int managementPort)
+            throws Exception {
         http
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)//не создаём сессии,т.к. есть жвт
                 )
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/api/auth/logout-all", "/api/auth/revoke").authenticated()//гасят токены владельца
+                        .requestMatchers("/api/auth/introspect").authenticated()//раскрывает id и email по чужим токенам
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/**").authenticated()
+                        .requestMatchers(onManagementPort(serverPort, managementPort)).permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").authenticated()//метрики наружу без токена не отдаём
                         .anyRequest().permitAll()
                 )
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(authenticationEntryPoint()))
                 .addFilterBefore(jwtTokenValidator, BasicAuthenticationFilter.class)
+                .addFilterBefore(concurrencyLimitFilter, JwtTokenValidator.class)//лишние login/register отбрасываются первыми
                 .csrf(csrf -> csrf.disable())
-                .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                .cors(cors -> cors.configurationSource(request -> corsConfiguration()))
                 .formLogin(form -> form.disable())
                 .httpBasic(basic -> basic.disable()); /* отключаем BASIC-аутентификацию,
                 т.к. используем JWT */
@@ -45,26 +77,46 @@ public class AppConfig {
         return http.build();
     }
 
-    //CORS-конфигурация
-    private CorsConfigurationSource corsConfigurationSource() {
-        return request -> {
-            CorsConfiguration cfg = new CorsConfiguration();
-            cfg.setAllowedOrigins(List.of("http://localhost:5252"));
-            cfg.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));//указываем разрешённые методы
-            cfg.setAllowCredentials(true);//учётные данные
-            cfg.setAllowedHeaders(List.of("*"));
-            cfg.setExposedHeaders(List.of("Authorization"));
-            cfg.setMaxAge(3600L);
-            return cfg;
-        };
+    /* отдельный порт управления (management.server.port) наружу не публикуется,Prometheus снимает с него
+    метрики без токена. Цепочка фильтров общая для обоих портов,поэтому различаем по порту запроса */
+    private static RequestMatcher onManagementPort(int serverPort, int managementPort) {
+        return request -> managementPort > 0 && managementPort != serverPort
+                && request.getLocalPort() == managementPort;
+    }
+
+    //без токена защищённые /api/auth/** отвечают 401,остальное по-прежнему 403 (на это рассчитывает чат-сервис)
+    private static AuthenticationEntryPoint authenticationEntryPoint() {
+        LinkedHashMap<RequestMatcher, AuthenticationEntryPoint> entryPoints = new LinkedHashMap<>();
+        entryPoints.put(PathPatternRequestMatcher.withDefaults().matcher("/api/auth/**"),
+                new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED));
+        DelegatingAuthenticationEntryPoint entryPoint = new DelegatingAuthenticationEntryPoint(entryPoints);
+        entryPoint.setDefaultEntryPoint(new Http403ForbiddenEntryPoint());
+        return entryPoint;
+    }
+
+    //CORS-конфигурация,общая для сервлетного и реактивного стека
+    static CorsConfiguration corsConfiguration() {
+        CorsConfiguration cfg = new CorsConfiguration();
+        cfg.setAllowedOrigins(List.of("http://localhost:5252"));
+        cfg.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));//указываем разрешённые методы
+        cfg.setAllowCredentials(true);//учётные данные
+        cfg.setAllowedHeaders(List.of("*"));
+        cfg.setExposedHeaders(List.of("Authorization", UserController.MISSING_IDS_HEADER,
+                UserController.MISSING_IDS_TRUNCATED_HEADER));
+        cfg.setMaxAge(3600L);
+        return cfg;
     }
 
+    //BCrypt выполняется на отдельном ограниченном пуле, а не на потоках Tomcat или Netty
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${auth.password.hashing.threads:0}") int threads,
+                                           @Value("${auth.password.hashing.queue-capacity:64}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, meterRegistry);
     }
 
     @Bean
+    @Profile("!reactive")
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
@@ -0,0 +1,89 @@
+package ru.balybin.monkey_backend.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * События JDK Flight Recorder для этапов запроса: проверка access-токена, выпуск токена, BCrypt и запросы
+ * репозиториев. По умолчанию выключены и включаются профилем {@code jfr/auth.jfc} на работающем узле
+ * ({@code jcmd <pid> JFR.start}), без перезапуска. Пока запись не идёт, {@code begin()}/{@code shouldCommit()}
+ * сводятся к проверке флага, а сам объект события JIT убирает escape-анализом.
+ */
+final class AuthEvents {
+
+    static final String PREFIX = "ru.balybin.monkey_backend.";
+
+    private AuthEvents() {
+    }
+
+    @Enabled(false)
+    @StackTrace(false)
+    @Category({"Monkey", "Auth"})
+    abstract static class Stage extends Event {
+
+        @Label("Outcome")
+        String outcome;
+
+        @Label("Batch Size")
+        @Description("Rows, tokens or passwords handled by one call")
+        int batchSize = 1;
+    }
+
+    @Name(PREFIX + "TokenVerification")
+    @Label("Token Verification")
+    @Description("Bearer token check in JwtTokenValidator, including revocation lookups")
+    static class TokenVerification extends Stage {
+
+        private static final EventType TYPE = EventType.getEventType(TokenVerification.class);
+
+        @Label("Cached")
+        @Description("Signature check was skipped thanks to VerifiedTokenCache")
+        boolean cached = true;
+
+        /** {@code null}, пока запись не идёт: событие передаётся в лямбду кэша и escape-анализ его не уберёт. */
+        static TokenVerification beginIfEnabled() {
+            if (!TYPE.isEnabled()) {
+                return null;
+            }
+            TokenVerification event = new TokenVerification();
+            event.begin();
+            return event;
+        }
+    }
+
+    @Name(PREFIX + "TokenIssue")
+    @Label("Token Issue")
+    static class TokenIssue extends Stage {
+    }
+
+    @Name(PREFIX + "PasswordHash")
+    @Label("Password Hash")
+    @Description("BCrypt on the hashing pool; duration excludes the queue wait")
+    static class PasswordHash extends Stage {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+    }
+
+    @Name(PREFIX + "RepositoryCall")
+    @Label("Repository Call")
+    static class RepositoryCall extends Stage {
+
+        @Label("Repository")
+        String repository;
+
+        @Label("Method")
+        String method;
+    }
+}
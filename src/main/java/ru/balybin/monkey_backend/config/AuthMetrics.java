@@ -0,0 +1,78 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.balybin.monkey_backend.exception.TooManyAttemptsException;
+import ru.balybin.monkey_backend.exception.UserException;
+
+/**
+ * Счётчики исходов на путях, через которые идёт каждый запрос: проверка access-токена в фильтрах и
+ * login/register/refresh в контроллерах обоих стеков. Все комбинации тегов регистрируются заранее и лежат
+ * в массивах, поэтому запись - инкремент без поиска в реестре и без аллокаций. Значения тегов - только
+ * из перечислений, никаких email, id и текстов ошибок.
+ */
+@Component
+public class AuthMetrics {
+
+    public enum Operation {
+        LOGIN, REGISTER, REFRESH;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    public enum JwtOutcome {
+        VALID, INVALID, REVOKED;
+
+        private final String tag = name().toLowerCase();
+
+        String tag() {
+            return tag;
+        }
+    }
+
+    //[операция][успех,отказ клиенту,ошибка сервиса]
+    private final Counter[][] operations = new Counter[Operation.values().length][];
+    private final Counter[] jwt = new Counter[JwtOutcome.values().length];
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        for (Operation operation : Operation.values()) {
+            operations[operation.ordinal()] = new Counter[]{
+                    operationCounter(meterRegistry, operation, "success"),
+                    operationCounter(meterRegistry, operation, "rejected"),
+                    operationCounter(meterRegistry, operation, "error")
+            };
+        }
+        for (JwtOutcome outcome : JwtOutcome.values()) {
+            jwt[outcome.ordinal()] = Counter.builder("auth.jwt.requests")
+                    .description("Requests with a bearer token by validation outcome")
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    public void success(Operation operation) {
+        operations[operation.ordinal()][0].increment();
+    }
+
+    /**
+     * {@link UserException} и {@link TooManyAttemptsException} - отказ клиенту (неверный пароль, занятый email,
+     * превышен лимит попыток), остальное - ошибка сервиса.
+     */
+    public void failure(Operation operation, Throwable error) {
+        boolean rejected = error instanceof UserException || error instanceof TooManyAttemptsException;
+        operations[operation.ordinal()][rejected ? 1 : 2].increment();
+    }
+
+    public void jwt(JwtOutcome outcome) {
+        jwt[outcome.ordinal()].increment();
+    }
+
+    private static Counter operationCounter(MeterRegistry meterRegistry, Operation operation, String outcome) {
+        return Counter.builder("auth.operations")
+                .description("Login, registration and refresh attempts by outcome")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
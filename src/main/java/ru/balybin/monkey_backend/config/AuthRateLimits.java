@@ -0,0 +1,88 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.balybin.monkey_backend.exception.TooManyAttemptsException;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты login и register по email и по адресу клиента. Проверяется первым делом в контроллере,
+ * до запроса в базу и BCrypt, так что отклонённая попытка стоит поиска в {@link StripedRateLimiter}, а не хэша.
+ * Лимиты задаются строкой {@code <burst>/<period>}, пустая строка выключает лимит. Адрес клиента - адрес
+ * соединения; за прокси нужен {@code server.forward-headers-strategy}, иначе все клиенты - это прокси.
+ */
+@Component
+public class AuthRateLimits {
+
+    private final Limit loginEmail;
+    private final Limit loginAddress;
+    private final Limit registerEmail;
+    private final Limit registerAddress;
+
+    public AuthRateLimits(@Value("${auth.rate-limit.enabled:true}") boolean enabled,
+                          @Value("${auth.rate-limit.login.per-email:5/1m}") String loginPerEmail,
+                          @Value("${auth.rate-limit.login.per-address:30/1m}") String loginPerAddress,
+                          @Value("${auth.rate-limit.register.per-email:3/10m}") String registerPerEmail,
+                          @Value("${auth.rate-limit.register.per-address:10/10m}") String registerPerAddress,
+                          @Value("${auth.rate-limit.max-keys:100000}") int maxKeys,
+                          MeterRegistry meterRegistry) {
+        this.loginEmail = Limit.of(enabled, "login", "email", loginPerEmail, maxKeys, meterRegistry);
+        this.loginAddress = Limit.of(enabled, "login", "address", loginPerAddress, maxKeys, meterRegistry);
+        this.registerEmail = Limit.of(enabled, "register", "email", registerPerEmail, maxKeys, meterRegistry);
+        this.registerAddress = Limit.of(enabled, "register", "address", registerPerAddress, maxKeys, meterRegistry);
+    }
+
+    public void checkLogin(String email, String clientAddress) {
+        check(loginAddress, clientAddress);
+        check(loginEmail, normalize(email));
+    }
+
+    public void checkRegister(String email, String clientAddress) {
+        check(registerAddress, clientAddress);
+        check(registerEmail, normalize(email));
+    }
+
+    //trim и toLowerCase возвращают ту же строку,если менять нечего
+    static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void check(Limit limit, String key) {
+        if (limit == null || key == null) {
+            return;
+        }
+        long waitNanos = limit.limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            limit.rejected.increment();
+            //Retry-After в целых секундах,округляем вверх
+            throw new TooManyAttemptsException("Too many attempts, try again later",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+    }
+
+    private record Limit(StripedRateLimiter limiter, Counter rejected) {
+
+        static Limit of(boolean enabled, String endpoint, String key, String spec, int maxKeys,
+                        MeterRegistry meterRegistry) {
+            if (!enabled || spec == null || spec.isBlank()) {
+                return null;
+            }
+            StripedRateLimiter limiter = StripedRateLimiter.parse(spec, maxKeys);
+            Counter rejected = Counter.builder("auth.rate_limit.rejected")
+                    .description("Attempts refused before touching the database or BCrypt")
+                    .tag("endpoint", endpoint)
+                    .tag("key", key)
+                    .register(meterRegistry);
+            Gauge.builder("auth.rate_limit.keys", limiter, StripedRateLimiter::size)
+                    .tag("endpoint", endpoint)
+                    .tag("key", key)
+                    .register(meterRegistry);
+            return new Limit(limiter, rejected);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.balybin.monkey_backend.exception.PasswordHashingOverloadException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt стоит десятки миллисекунд чистого CPU, поэтому хэширование выполняется на отдельном пуле
+ * размером с число ядер и с ограниченной очередью. Когда очередь заполнена, запрос сразу получает 503,
+ * а потоки сервера остаются свободными для дешёвых эндпоинтов.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final String ENCODE = "encode";
+    private static final String MATCHES = "matches";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+
+        this.encodeTimer = Timer.builder("password.hash.duration").tag("operation", ENCODE)
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("password.hash.duration").tag("operation", MATCHES)
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("password.hash.queue.wait").register(meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected").register(meterRegistry);
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeTimer, ENCODE);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchTimer, MATCHES);
+    }
+
+    /** Для реактивного стека: поток event loop'а не ждёт BCrypt,результат приходит в future. */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), encodeTimer, ENCODE);
+    }
+
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), matchTimer, MATCHES);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task, Timer timer, String operation) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timed(task, timer, operation, submittedAt));
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    //переполнение очереди отдаётся не исключением,а уже завершённым с ошибкой future
+    private <T> CompletableFuture<T> submit(Callable<T> task, Timer timer, String operation) {
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(timed(task, timer, operation, submittedAt));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(overloaded());
+        }
+        return result;
+    }
+
+    //выполняется на потоке пула: таймеры,событие JFR и сама задача
+    private <T> T timed(Callable<T> task, Timer timer, String operation, long submittedAt) throws Exception {
+        long startedAt = System.nanoTime();
+        queueWaitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+        AuthEvents.PasswordHash event = new AuthEvents.PasswordHash();
+        event.begin();
+        String outcome = "error";
+        try {
+            T value = task.call();
+            outcome = value instanceof Boolean matched ? (matched ? "match" : "mismatch") : "success";
+            return value;
+        } finally {
+            timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.outcome = outcome;
+                event.queueWait = startedAt - submittedAt;
+                event.commit();
+            }
+        }
+    }
+
+    private PasswordHashingOverloadException overloaded() {
+        rejected.increment();
+        return new PasswordHashingOverloadException("Password hashing capacity exceeded, try again later");
+    }
+
+    //обычные (не виртуальные) потоки: BCrypt - чистый CPU и должен быть ограничен числом ядер
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
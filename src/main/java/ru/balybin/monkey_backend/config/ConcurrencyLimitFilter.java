@@ -0,0 +1,46 @@
+package ru.balybin.monkey_backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+//Отбрасывает login/register сверх адаптивного предела до того,как запрос займёт поток и очередь BCrypt
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimits concurrencyLimits;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimits concurrencyLimits) {
+        this.concurrencyLimits = concurrencyLimits;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimit limit = concurrencyLimits.forRequest(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, concurrencyLimits.retryAfter());
+            response.setContentType("application/json");
+            response.getWriter().write(ConcurrencyLimits.OVERLOADED_BODY);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            //503 здесь - отказ переполненного пула BCrypt
+            limit.release(System.nanoTime() - start,
+                    response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+    }
+}
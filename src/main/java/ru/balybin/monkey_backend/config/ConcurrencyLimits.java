@@ -0,0 +1,56 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пределы одновременных запросов для эндпоинтов, которые упираются в BCrypt. У login и register пределы
+ * свои, чтобы наплыв регистраций не съедал логины и наоборот. Остальные пути ({@code /refresh},
+ * {@code /api/users/**}) BCrypt не трогают и не ограничиваются, поэтому их запас не страдает при перегрузке.
+ */
+@Component
+public class ConcurrencyLimits {
+
+    static final String LOGIN_PATH = "/api/auth/login";
+    static final String REGISTER_PATH = "/api/auth/register";
+
+    static final String OVERLOADED_BODY =
+            "{\"error\":\"SERVICE_OVERLOADED\",\"message\":\"Too many concurrent requests, try again later\"}";
+
+    private final AdaptiveConcurrencyLimit login;
+    private final AdaptiveConcurrencyLimit register;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimits(@Value("${auth.concurrency.enabled:true}") boolean enabled,
+                             @Value("${auth.concurrency.initial-limit:16}") int initialLimit,
+                             @Value("${auth.concurrency.min-limit:2}") int minLimit,
+                             @Value("${auth.concurrency.login.max-limit:64}") int loginMaxLimit,
+                             @Value("${auth.concurrency.register.max-limit:32}") int registerMaxLimit,
+                             @Value("${auth.concurrency.latency-tolerance:2.0}") double tolerance,
+                             @Value("${auth.concurrency.backoff:0.9}") double backoff,
+                             @Value("${auth.concurrency.retry-after-seconds:1}") long retryAfterSeconds,
+                             MeterRegistry meterRegistry) {
+        this.login = enabled ? new AdaptiveConcurrencyLimit("login", initialLimit, minLimit, loginMaxLimit,
+                tolerance, backoff, meterRegistry) : null;
+        this.register = enabled ? new AdaptiveConcurrencyLimit("register", initialLimit, minLimit, registerMaxLimit,
+                tolerance, backoff, meterRegistry) : null;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /** Предел для POST на этот путь, {@code null} - путь не ограничивается. */
+    public AdaptiveConcurrencyLimit forRequest(String method, String path) {
+        if (!"POST".equals(method)) {
+            return null;
+        }
+        return switch (path) {
+            case LOGIN_PATH -> login;
+            case REGISTER_PATH -> register;
+            default -> null;
+        };
+    }
+
+    public String retryAfter() {
+        return Long.toString(retryAfterSeconds);
+    }
+}
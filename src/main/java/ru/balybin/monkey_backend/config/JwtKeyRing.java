@@ -0,0 +1,285 @@
+package ru.balybin.monkey_backend.config;
+
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Набор ключей подписи access-токенов. Подписываем одним текущим ключом, его {@code kid} пишется в заголовок
+ * токена; проверяем ключом из map по {@code kid} без перебора - там текущий и ещё не выведенные старые ключи.
+ * <p>
+ * Ключ бывает общим HMAC-секретом ({@code <kid>=секрет}) или асимметричным EC (P-256 и др.) или Ed25519
+ * ({@code <kid>.private} и {@code <kid>.public} - PKCS#8 и X.509 в base64 или PEM). Открытые ключи
+ * асимметричных отдаются в {@link #jwks()}, по ним другие сервисы проверяют токены сами; HMAC-секреты наружу
+ * не попадают.
+ * <p>
+ * Без {@code auth.jwt.keys-file} в наборе один ключ: пара {@code auth.jwt.private-key}/{@code auth.jwt.public-key},
+ * если задана, иначе {@code auth.jwt.secret}. С файлом набор перечитывается при его изменении, поэтому ротация
+ * не требует рестарта: новый ключ сначала добавляется в файл только для проверки (чтобы потребители JWKS успели
+ * его закэшировать), потом становится {@code current}; старый остаётся, пока не истекут подписанные им токены
+ * (сутки), потом удаляется.
+ * <pre>
+ * current=2026-10
+ * 2026-10.private=MIGHAgEAMBMGByqGSM49...
+ * 2026-10.public=MFkwEwYHKoZIzj0CAQYI...
+ * 2026-07=старый HMAC-секрет
+ * </pre>
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    static final String CURRENT = "current";
+    static final String PRIVATE_SUFFIX = ".private";
+    static final String PUBLIC_SUFFIX = ".public";
+    private static final List<String> ALGORITHMS = List.of("EC", "Ed25519");
+
+    private final Path keysFile;
+    private final VerifiedTokenCache tokenCache;
+    private final ScheduledExecutorService reloader;
+
+    private volatile KeySet keys;
+    private long keysFileModified;
+
+    public JwtKeyRing(@Value("${auth.jwt.secret}") String secret,
+                      @Value("${auth.jwt.private-key:}") String privateKey,
+                      @Value("${auth.jwt.public-key:}") String publicKey,
+                      @Value("${auth.jwt.kid:default}") String kid,
+                      @Value("${auth.jwt.keys-file:}") String keysFile,
+                      @Value("${auth.jwt.keys-reload-seconds:30}") long reloadSeconds,
+                      VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+        if (keysFile == null || keysFile.isBlank()) {
+            this.keysFile = null;
+            this.reloader = null;
+            Properties single = new Properties();
+            single.setProperty(CURRENT, kid);
+            if (privateKey != null && !privateKey.isBlank()) {
+                single.setProperty(kid + PRIVATE_SUFFIX, privateKey);
+                single.setProperty(kid + PUBLIC_SUFFIX, publicKey);
+            } else {
+                single.setProperty(kid, secret);
+            }
+            this.keys = KeySet.parse(single);
+            return;
+        }
+        this.keysFile = Path.of(keysFile);
+        //без валидного файла на старте не поднимаемся,дальше ошибки чтения оставляют прежний набор
+        if (!reload()) {
+            throw new IllegalStateException("Cannot load JWT keys from " + keysFile);
+        }
+        this.reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jwt-key-ring");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (reloadSeconds > 0) {
+            reloader.scheduleWithFixedDelay(this::reload, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Набор из одного HMAC-ключа, для тестов и бенчмарков. */
+    public static JwtKeyRing of(String kid, String secret) {
+        return new JwtKeyRing(secret, null, null, kid, null, 0, null);
+    }
+
+    /** Набор из одной асимметричной пары, для тестов и бенчмарков. */
+    public static JwtKeyRing of(String kid, KeyPair keyPair) {
+        Base64.Encoder base64 = Base64.getEncoder();
+        return new JwtKeyRing(null, base64.encodeToString(keyPair.getPrivate().getEncoded()),
+                base64.encodeToString(keyPair.getPublic().getEncoded()), kid, null, 0, null);
+    }
+
+    public SigningKey signingKey() {
+        return keys.signing();
+    }
+
+    /** Ключ проверки по {@code kid}; {@code null} - ключ неизвестен или уже выведен. */
+    public Key verificationKey(String kid) {
+        KeySet current = keys;
+        //токены,выпущенные до появления kid,подписаны текущим ключом
+        return current.verification().get(kid != null ? kid : current.signing().kid());
+    }
+
+    public Set<String> kids() {
+        return keys.verification().keySet();
+    }
+
+    /** Открытые ключи набора в виде JWK Set, вычисляется один раз на каждую версию набора. */
+    public JwksDocument jwks() {
+        return keys.jwks();
+    }
+
+    /** Перечитывает файл ключей, если он изменился. {@code false} - файл не прочитан, набор прежний. */
+    synchronized boolean reload() {
+        try {
+            long modified = Files.getLastModifiedTime(keysFile).toMillis();
+            if (keys != null && modified == keysFileModified) {
+                return true;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(keysFile, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            replace(KeySet.parse(properties));
+            keysFileModified = modified;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("JWT keys file {} was not applied, keeping {}", keysFile, keys != null ? kids() : "nothing", e);
+            return false;
+        }
+    }
+
+    private void replace(KeySet fresh) {
+        KeySet previous = keys;
+        keys = fresh;
+        if (previous == null) {
+            log.info("JWT keys loaded: current={}, verification={}", fresh.signing().kid(), fresh.verification().keySet());
+            return;
+        }
+        log.info("JWT keys reloaded: current={}, verification={}", fresh.signing().kid(), fresh.verification().keySet());
+        //токены выведенного ключа не должны дальше жить в кэше проверенных
+        if (tokenCache != null && !fresh.verification().keySet().containsAll(previous.verification().keySet())) {
+            tokenCache.invalidateAll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    /** Текущий ключ подписи вместе с его {@code kid}, читаются атомарно. */
+    public record SigningKey(String kid, Key key) {}
+
+    /** Готовый JSON для {@code /.well-known/jwks.json} и его сильный ETag. */
+    public record JwksDocument(byte[] json, String etag) {
+
+        static JwksDocument of(List<PublicJwk<?>> keys) {
+            String json = keys.stream()
+                    .map(Jwks::json)
+                    .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+                String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+                return new JwksDocument(bytes, etag);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+    private record KeySet(SigningKey signing, Map<String, Key> verification, JwksDocument jwks) {
+
+        static KeySet parse(Properties properties) {
+            String currentKid = properties.getProperty(CURRENT);
+            if (currentKid == null || currentKid.isBlank()) {
+                throw new IllegalArgumentException("JWT keys file has no '" + CURRENT + "' entry");
+            }
+            Map<String, Key> verification = new HashMap<>();
+            Map<String, PrivateKey> privateKeys = new HashMap<>();
+            List<PublicJwk<?>> published = new ArrayList<>();
+            for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+                String value = properties.getProperty(name);
+                if (name.equals(CURRENT)) {
+                    continue;
+                }
+                if (name.endsWith(PRIVATE_SUFFIX)) {
+                    privateKeys.put(kidOf(name, PRIVATE_SUFFIX), privateKey(value));
+                } else if (name.endsWith(PUBLIC_SUFFIX)) {
+                    String kid = kidOf(name, PUBLIC_SUFFIX);
+                    PublicKey publicKey = publicKey(value);
+                    verification.put(kid, publicKey);
+                    published.add(Jwks.builder().key(publicKey)
+                            .id(kid).publicKeyUse("sig").build());
+                } else {
+                    verification.put(name, Keys.hmacShaKeyFor(value.getBytes()));
+                }
+            }
+            Key verifying = verification.get(currentKid);
+            if (verifying == null) {
+                throw new IllegalArgumentException("JWT keys file has no key for current kid " + currentKid);
+            }
+            //у асимметричного ключа подписывает закрытая часть,у HMAC - тот же секрет
+            Key signing = verifying instanceof PublicKey ? privateKeys.get(currentKid) : verifying;
+            if (signing == null) {
+                throw new IllegalArgumentException("JWT keys file has no private key for current kid " + currentKid);
+            }
+            return new KeySet(new SigningKey(currentKid, signing), Map.copyOf(verification),
+                    JwksDocument.of(published));
+        }
+
+        private static String kidOf(String name, String suffix) {
+            return name.substring(0, name.length() - suffix.length());
+        }
+
+        private static PrivateKey privateKey(String encoded) {
+            PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(decode(encoded));
+            for (String algorithm : ALGORITHMS) {
+                try {
+                    return KeyFactory.getInstance(algorithm).generatePrivate(spec);
+                } catch (GeneralSecurityException e) {
+                    //пробуем следующий тип ключа
+                }
+            }
+            throw new IllegalArgumentException("Unsupported private key, expected EC or Ed25519 PKCS#8");
+        }
+
+        private static PublicKey publicKey(String encoded) {
+            X509EncodedKeySpec spec = new X509EncodedKeySpec(decode(encoded));
+            for (String algorithm : ALGORITHMS) {
+                try {
+                    return KeyFactory.getInstance(algorithm).generatePublic(spec);
+                } catch (GeneralSecurityException e) {
+                    //пробуем следующий тип ключа
+                }
+            }
+            throw new IllegalArgumentException("Unsupported public key, expected EC or Ed25519 X.509");
+        }
+
+        //base64 как есть или PEM: строки -----BEGIN/END----- и переводы строк отбрасываются
+        private static byte[] decode(String encoded) {
+            if (encoded == null || encoded.isBlank()) {
+                throw new IllegalArgumentException("Empty key material");
+            }
+            return Base64.getMimeDecoder().decode(encoded.replaceAll("-----[A-Z ]+-----", ""));
+        }
+    }
+}
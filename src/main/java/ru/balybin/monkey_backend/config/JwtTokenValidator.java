@@ -1,30 +1,33 @@
 package ru.balybin.monkey_backend.config;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
-import java.util.List;
 
 //Проверяем наличие и валидность токена,если всё ок,то аутентификация устанавливается в контекст спринга
 public class JwtTokenValidator extends OncePerRequestFilter {
 
-    private final SecretKey key;
+    private final TokenProvider tokenProvider;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenVersions tokenVersions;
+    private final RevokedAccessTokens revokedAccessTokens;
+    private final AuthMetrics authMetrics;
 
-    public JwtTokenValidator(String jwtSecret) {
-        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public JwtTokenValidator(TokenProvider tokenProvider, VerifiedTokenCache tokenCache,
+                             TokenVersions tokenVersions, RevokedAccessTokens revokedAccessTokens,
+                             AuthMetrics authMetrics) {
+        this.tokenProvider = tokenProvider;
+        this.tokenCache = tokenCache;
+        this.tokenVersions = tokenVersions;
+        this.revokedAccessTokens = revokedAccessTokens;
+        this.authMetrics = authMetrics;
     }
 
     @Override
@@ -34,29 +37,29 @@ public class JwtTokenValidator extends OncePerRequestFilter {
         String jwt = request.getHeader(JwtConstant.JWT_HEADER); // Используем константу
 
         if (jwt != null && jwt.startsWith("Bearer ")) {
+            AuthEvents.TokenVerification event = AuthEvents.TokenVerification.beginIfEnabled();
             try {
                 jwt = jwt.substring(7);//удаление bearer
 
-                Claims claims = Jwts.parser()
-                        .verifyWith(key)//указываем ключ,которым проверяем подпись токена
-                        .build()//возвращает готовый к работе объект
-                        .parseSignedClaims(jwt)//разбор и проверка токена,возвращает заголовок,тело и подпись
-                        .getPayload();//проверяем подпись токена и извлекаем тело
-
-                String username = claims.get("email", String.class);
-                String authorities = claims.get("authorities", String.class);
-
-                //Если authorities null, устанавливаем пустой список
-                List<GrantedAuthority> grantedAuthorities = (authorities != null)
-                        ? AuthorityUtils.commaSeparatedStringToAuthorityList(authorities)
-                        : AuthorityUtils.NO_AUTHORITIES;
-
-                Authentication authentication = new UsernamePasswordAuthenticationToken(username, null, grantedAuthorities);
-                SecurityContextHolder.getContext().setAuthentication(authentication);/* Создаем аутентификационный
-                объект с именем пользователя и правами, затем устанавливаем его в контекст безопасности.*/
+                Authentication authentication = event != null
+                        ? tokenCache.get(jwt, token -> verify(token, event))
+                        : tokenCache.get(jwt, this::verify);
+                //отзыв через logout-all и по jti проверяется и для токенов из кэша
+                UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+                if (tokenVersions.isRevoked(principal) || revokedAccessTokens.isRevoked(principal)) {
+                    throw new BadCredentialsException("Token revoked");
+                }
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                authMetrics.jwt(AuthMetrics.JwtOutcome.VALID);
+                commit(event, AuthMetrics.JwtOutcome.VALID);
 
             } catch (Exception e) {
                 SecurityContextHolder.clearContext();
+                AuthMetrics.JwtOutcome outcome = e instanceof BadCredentialsException
+                        ? AuthMetrics.JwtOutcome.REVOKED
+                        : AuthMetrics.JwtOutcome.INVALID;
+                authMetrics.jwt(outcome);
+                commit(event, outcome);
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write("{\"error\":\"Invalid token received\"}");
@@ -65,4 +68,25 @@ public class JwtTokenValidator extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private VerifiedTokenCache.Verified verify(String jwt) {
+        return VerifiedTokenCache.Verified.of(tokenProvider.verify(jwt));
+    }
+
+    private VerifiedTokenCache.Verified verify(String jwt, AuthEvents.TokenVerification event) {
+        event.cached = false;
+        return verify(jwt);
+    }
+
+    //поля заполняются только когда событие действительно пишется
+    private static void commit(AuthEvents.TokenVerification event, AuthMetrics.JwtOutcome outcome) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = outcome.tag();
+            event.commit();
+        }
+    }
+}
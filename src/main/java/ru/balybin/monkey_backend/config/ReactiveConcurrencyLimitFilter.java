@@ -0,0 +1,48 @@
+package ru.balybin.monkey_backend.config;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+//Реактивный аналог ConcurrencyLimitFilter: место освобождается,когда обмен завершён,а не когда вернулся вызов
+public class ReactiveConcurrencyLimitFilter implements WebFilter {
+
+    private final ConcurrencyLimits concurrencyLimits;
+
+    public ReactiveConcurrencyLimitFilter(ConcurrencyLimits concurrencyLimits) {
+        this.concurrencyLimits = concurrencyLimits;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        AdaptiveConcurrencyLimit limit = concurrencyLimits.forRequest(exchange.getRequest().getMethod().name(),
+                exchange.getRequest().getPath().pathWithinApplication().value());
+        if (limit == null) {
+            return chain.filter(exchange);
+        }
+        if (!limit.tryAcquire()) {
+            return overloaded(exchange.getResponse());
+        }
+        long start = System.nanoTime();
+        //doFinally срабатывает ровно один раз: и при ответе,и при ошибке,и при обрыве соединения
+        return chain.filter(exchange).doFinally(signal -> limit.release(System.nanoTime() - start,
+                HttpStatus.SERVICE_UNAVAILABLE.equals(exchange.getResponse().getStatusCode())));
+    }
+
+    private Mono<Void> overloaded(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, concurrencyLimits.retryAfter());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer body = response.bufferFactory()
+                .wrap(ConcurrencyLimits.OVERLOADED_BODY.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+}
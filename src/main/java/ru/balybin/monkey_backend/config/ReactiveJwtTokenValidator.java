@@ -0,0 +1,89 @@
+package ru.balybin.monkey_backend.config;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+
+//Реактивный аналог JwtTokenValidator: аутентификация кладётся не в ThreadLocal,а в контекст Reactor'а
+public class ReactiveJwtTokenValidator implements WebFilter {
+
+    private final TokenProvider tokenProvider;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenVersions tokenVersions;
+    private final RevokedAccessTokens revokedAccessTokens;
+    private final AuthMetrics authMetrics;
+
+    public ReactiveJwtTokenValidator(TokenProvider tokenProvider, VerifiedTokenCache tokenCache,
+                                     TokenVersions tokenVersions, RevokedAccessTokens revokedAccessTokens,
+                                     AuthMetrics authMetrics) {
+        this.tokenProvider = tokenProvider;
+        this.tokenCache = tokenCache;
+        this.tokenVersions = tokenVersions;
+        this.revokedAccessTokens = revokedAccessTokens;
+        this.authMetrics = authMetrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String jwt = exchange.getRequest().getHeaders().getFirst(JwtConstant.JWT_HEADER);
+        if (jwt == null || !jwt.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        //проверка подписи - чистый CPU без ввода-вывода,её можно делать прямо на event loop
+        Authentication authentication;
+        try {
+            authentication = tokenCache.get(jwt.substring(7), this::verify);
+        } catch (Exception e) {
+            authMetrics.jwt(AuthMetrics.JwtOutcome.INVALID);
+            return unauthorized(exchange.getResponse());
+        }
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        if (tokenVersions.isRevoked(principal)) {
+            return revoked(exchange.getResponse());
+        }
+        if (revokedAccessTokens.mightBeRevoked(principal)) {
+            //срабатывание фильтра - редкий случай,точная проверка идёт в базу и уходит с event loop'а
+            return Mono.fromCallable(() -> revokedAccessTokens.isRevoked(principal))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(revoked -> revoked
+                            ? revoked(exchange.getResponse())
+                            : authenticated(exchange, chain, authentication));
+        }
+        return authenticated(exchange, chain, authentication);
+    }
+
+    private Mono<Void> revoked(ServerHttpResponse response) {
+        authMetrics.jwt(AuthMetrics.JwtOutcome.REVOKED);
+        return unauthorized(response);
+    }
+
+    private Mono<Void> authenticated(ServerWebExchange exchange, WebFilterChain chain,
+                                     Authentication authentication) {
+        authMetrics.jwt(AuthMetrics.JwtOutcome.VALID);
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+
+    private VerifiedTokenCache.Verified verify(String jwt) {
+        return VerifiedTokenCache.Verified.of(tokenProvider.verify(jwt));
+    }
+
+    private static Mono<Void> unauthorized(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer body = response.bufferFactory()
+                .wrap("{\"error\":\"Invalid token received\"}".getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+}
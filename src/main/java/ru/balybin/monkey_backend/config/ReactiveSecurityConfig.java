@@ -0,0 +1,79 @@
+package ru.balybin.monkey_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.DelegatingServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.DelegatingServerAuthenticationEntryPoint.DelegateEntry;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.PathPatternParserServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+
+import java.net.InetSocketAddress;
+
+//Те же правила доступа,что в AppConfig.securityFilterChain,для профиля reactive
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, TokenProvider tokenProvider,
+                                                         VerifiedTokenCache verifiedTokenCache,
+                                                         TokenVersions tokenVersions,
+                                                         RevokedAccessTokens revokedAccessTokens,
+                                                         AuthMetrics authMetrics,
+                                                         ConcurrencyLimits concurrencyLimits,
+                                                         @Value("${server.port:8080}") int serverPort,
+                                                         @Value("${management.server.port:-1}") int managementPort) {
+        return http
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())//без сессий
+                .authorizeExchange(auth -> auth
+                        .pathMatchers("/api/auth/logout-all", "/api/auth/revoke").authenticated()
+                        .pathMatchers("/api/auth/introspect").authenticated()
+                        .pathMatchers("/api/auth/**").permitAll()
+                        .pathMatchers("/api/**").authenticated()
+                        .matchers(onManagementPort(serverPort, managementPort)).permitAll()
+                        .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .pathMatchers("/actuator/**").authenticated()
+                        .anyExchange().permitAll()
+                )
+                .addFilterBefore(new ReactiveConcurrencyLimitFilter(concurrencyLimits),
+                        SecurityWebFiltersOrder.AUTHENTICATION)
+                .addFilterAt(new ReactiveJwtTokenValidator(tokenProvider, verifiedTokenCache, tokenVersions,
+                        revokedAccessTokens, authMetrics), SecurityWebFiltersOrder.AUTHENTICATION)
+                //401 для /api/auth/**,иначе 403,как AppConfig.authenticationEntryPoint сервлетного стека
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(authenticationEntryPoint()))
+                .csrf(csrf -> csrf.disable())
+                .cors(cors -> cors.configurationSource(exchange -> AppConfig.corsConfiguration()))
+                .formLogin(form -> form.disable())
+                .httpBasic(basic -> basic.disable())
+                .build();
+    }
+
+    //см. AppConfig.onManagementPort
+    private static ServerWebExchangeMatcher onManagementPort(int serverPort, int managementPort) {
+        return exchange -> {
+            InetSocketAddress local = exchange.getRequest().getLocalAddress();
+            return managementPort > 0 && managementPort != serverPort && local != null
+                    && local.getPort() == managementPort ? MatchResult.match() : MatchResult.notMatch();
+        };
+    }
+
+    private static ServerAuthenticationEntryPoint authenticationEntryPoint() {
+        DelegatingServerAuthenticationEntryPoint entryPoint = new DelegatingServerAuthenticationEntryPoint(
+                new DelegateEntry(new PathPatternParserServerWebExchangeMatcher("/api/auth/**"),
+                        new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+        entryPoint.setDefaultEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN));
+        return entryPoint;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.balybin.monkey_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Формат refresh-токена: {@code base64url(payload).base64url(HMAC-SHA256(payload))}, payload - версия формата,
+ * id пользователя, id семейства, номер поколения и срок действия (49 байт). Подпись и срок проверяются в памяти,
+ * в базе остаётся только текущее поколение семейства. Токен читает и проверяет только этот сервис, поэтому
+ * достаточно симметричного ключа, который наружу не отдаётся.
+ * <p>
+ * Ключ - {@code auth.refresh.secret}, без него выводится из {@code auth.jwt.secret} с отдельной меткой, чтобы
+ * одна и та же подпись не подходила к access-токенам. Смена ключа делает все выданные refresh-токены недействительными.
+ */
+@Component
+public class RefreshTokenCodec {
+
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 1 + 16 + 16 + 8 + 8;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String KEY_LABEL = "monkey-refresh-token-v1";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+
+    public RefreshTokenCodec(@Value("${auth.refresh.secret:}") String refreshSecret,
+                             @Value("${auth.jwt.secret}") String jwtSecret) {
+        byte[] keyBytes = refreshSecret != null && !refreshSecret.isBlank()
+                ? refreshSecret.getBytes(StandardCharsets.UTF_8)
+                : mac(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                        KEY_LABEL.getBytes(StandardCharsets.UTF_8));
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public String encode(Claims claims) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .put(VERSION)
+                .putLong(claims.userId().getMostSignificantBits())
+                .putLong(claims.userId().getLeastSignificantBits())
+                .putLong(claims.familyId().getMostSignificantBits())
+                .putLong(claims.familyId().getLeastSignificantBits())
+                .putLong(claims.generation())
+                .putLong(claims.expiresAt().getEpochSecond())
+                .array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(key, payload));
+    }
+
+    /** Claims токена; {@code null} - это не токен нашего формата или подпись не сходится. Срок не проверяется. */
+    public Claims decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0 || token.indexOf('.', dot + 1) >= 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        //сравнение за постоянное время,чтобы подпись нельзя было подобрать по задержке ответа
+        if (payload.length != PAYLOAD_LENGTH || payload[0] != VERSION
+                || !MessageDigest.isEqual(mac(key, payload), signature)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 1, PAYLOAD_LENGTH - 1);
+        UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+        UUID familyId = new UUID(buffer.getLong(), buffer.getLong());
+        long generation = buffer.getLong();
+        Instant expiresAt = Instant.ofEpochSecond(buffer.getLong());
+        return new Claims(userId, familyId, generation, expiresAt);
+    }
+
+    private static byte[] mac(SecretKeySpec key, byte[] data) {
+        try {
+            //Mac не потокобезопасен,а экземпляр стоит дешевле синхронизации
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    /** Содержимое refresh-токена: семейство - одна цепочка ротаций от одного логина. */
+    public record Claims(UUID userId, UUID familyId, long generation, Instant expiresAt) {}
+}
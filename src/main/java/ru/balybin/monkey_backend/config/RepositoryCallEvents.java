@@ -0,0 +1,81 @@
+package ru.balybin.monkey_backend.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Пишет {@link AuthEvents.RepositoryCall} на каждый вызов Spring Data репозитория. Перехватчик добавляется в прокси
+ * репозитория так же, как Boot подключает свои таймеры {@code spring.data.repository.invocations}.
+ * Реактивные методы пропускаются: их время уходит не на вызов, а на подписку.
+ */
+@Component
+class RepositoryCallEvents implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxy, information) -> proxy.addAdvice(
+                            new Recorder(information.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    static final class Recorder implements MethodInterceptor {
+
+        private final String repository;
+
+        Recorder(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (Publisher.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+                return invocation.proceed();
+            }
+            AuthEvents.RepositoryCall event = new AuthEvents.RepositoryCall();
+            event.begin();
+            Object result = null;
+            String outcome = "error";
+            try {
+                result = invocation.proceed();
+                outcome = "success";
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.repository = repository;
+                    event.method = invocation.getMethod().getName();
+                    event.outcome = outcome;
+                    event.batchSize = batchSize(invocation.getArguments(), result);
+                    event.commit();
+                }
+            }
+        }
+
+        //сколько строк передано или получено: saveAll/findAllById - по аргументу,@Modifying - число строк
+        static int batchSize(Object[] arguments, Object result) {
+            if (arguments.length > 0 && arguments[0] instanceof Collection<?> batch) {
+                return batch.size();
+            }
+            if (result instanceof Collection<?> rows) {
+                return rows.size();
+            }
+            if (result instanceof Integer rows) {
+                return rows;
+            }
+            if (result instanceof Optional<?> row) {
+                return row.isPresent() ? 1 : 0;
+            }
+            return result == null ? 0 : 1;
+        }
+    }
+}
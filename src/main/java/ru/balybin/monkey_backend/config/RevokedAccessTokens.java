@@ -0,0 +1,156 @@
+package ru.balybin.monkey_backend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.balybin.monkey_backend.model.RevokedAccessToken;
+import ru.balybin.monkey_backend.repository.RevokedAccessTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отзыв отдельных access-токенов по {@code jti}. Хранилище - таблица {@code revoked_access_tokens}, перед ней
+ * {@link RevokedTokenFilter}: для неотозванного токена проверка - несколько обращений к битовому массиву без
+ * ввода-вывода, в базу идёт только срабатывание фильтра. Ответ базы запоминается до следующего отзыва этого jti.
+ * <p>
+ * Свой отзыв узел кладёт в фильтр после коммита, отзывы с других узлов - раз в
+ * {@code auth.tokens.revocation.poll-seconds}, как {@link TokenVersions}. Токены без {@code jti} (выданные
+ * до его появления) по одному не отзываются, для них есть logout-all.
+ */
+@Component
+public class RevokedAccessTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedAccessTokens.class);
+
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedAccessTokenRepository repository;
+    private final long pollSeconds;
+    private final RevokedTokenFilter filter;
+    private final Cache<UUID, Boolean> confirmed;
+    private final Counter confirmedHits;
+    private final Counter falsePositives;
+    private final ScheduledExecutorService poller;
+
+    private volatile Instant lastPoll;
+
+    public RevokedAccessTokens(RevokedAccessTokenRepository repository,
+                               @Value("${auth.tokens.revocation.poll-seconds:5}") long pollSeconds,
+                               @Value("${auth.tokens.revoked.filter.expected-per-hour:10000}") int expectedPerHour,
+                               @Value("${auth.tokens.revoked.filter.fpp:0.001}") double falsePositiveRate,
+                               MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.pollSeconds = pollSeconds;
+        this.filter = new RevokedTokenFilter(expectedPerHour, falsePositiveRate);
+        //и отзыв,и ложное срабатывание верны до истечения токена,чужой отзыв сбрасывает запись через опрос
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(TokenProvider.ACCESS_TOKEN_TTL)
+                .build();
+        this.confirmedHits = Counter.builder("auth.tokens.revoked.filter.hits")
+                .tag("result", "revoked").register(meterRegistry);
+        this.falsePositives = Counter.builder("auth.tokens.revoked.filter.hits")
+                .tag("result", "false_positive").register(meterRegistry);
+        Gauge.builder("auth.tokens.revoked.filter.buckets", filter, RevokedTokenFilter::buckets)
+                .register(meterRegistry);
+        this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "revoked-access-tokens");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pollQuietly();
+        if (pollSeconds > 0) {
+            poller.scheduleWithFixedDelay(this::pollQuietly, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Дешёвая проверка без ввода-вывода: {@code false} - токен точно не отозван. */
+    public boolean mightBeRevoked(UserPrincipal principal) {
+        return principal.getTokenId() != null && principal.getExpiresAt() != null
+                && filter.mightContain(principal.getTokenId(), principal.getExpiresAt());
+    }
+
+    /** Точный ответ; в базу идёт только при срабатывании фильтра. */
+    public boolean isRevoked(UserPrincipal principal) {
+        if (!mightBeRevoked(principal)) {
+            return false;
+        }
+        boolean revoked = confirmed.get(principal.getTokenId(), repository::existsById);
+        (revoked ? confirmedHits : falsePositives).increment();
+        return revoked;
+    }
+
+    /** Отзывает токен до срока; повторный отзыв того же токена ничего не меняет. */
+    public void revoke(UserPrincipal principal) {
+        if (principal.getTokenId() == null) {
+            throw new IllegalArgumentException("Token has no jti");
+        }
+        RevokedAccessToken revoked = repository.save(new RevokedAccessToken(principal.getTokenId(),
+                principal.getUserId(), principal.getExpiresAt(), Instant.now()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(revoked);
+                }
+            });
+        } else {
+            apply(revoked);
+        }
+    }
+
+    /** Подтягивает отзывы с других узлов и выбрасывает корзины фильтра, в которых всё истекло. */
+    synchronized void poll() {
+        Instant now = Instant.now();
+        Instant horizon = now.minus(TokenProvider.ACCESS_TOKEN_TTL);
+        Instant since = lastPoll != null && lastPoll.minus(POLL_OVERLAP).isAfter(horizon)
+                ? lastPoll.minus(POLL_OVERLAP)
+                : horizon;
+        for (RevokedAccessToken revoked : repository.findRevokedAfter(since)) {
+            if (revoked.getExpiresAt().isAfter(now)) {
+                apply(revoked);
+            }
+        }
+        filter.evictExpired(now);
+        lastPoll = now;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    private void apply(RevokedAccessToken revoked) {
+        filter.add(revoked.getId(), revoked.getExpiresAt());
+        //запомненное раньше ложное срабатывание больше не верно
+        confirmed.invalidate(revoked.getId());
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Revoked access tokens poll failed", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.balybin.monkey_backend.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума по {@code jti} отозванных access-токенов, разбитый на корзины по часу истечения токена.
+ * Проверка смотрит только в корзину своего часа ({@code exp} известен из уже проверенного токена), а корзина,
+ * час которой прошёл, выбрасывается целиком: все токены в ней уже истекли сами. Поэтому фильтр не растёт
+ * и не требует удаления отдельных элементов.
+ * <p>
+ * {@code false} - токен точно не отозван, {@code true} - возможно отозван, нужна точная проверка.
+ */
+final class RevokedTokenFilter {
+
+    static final Duration BUCKET = Duration.ofHours(1);
+
+    private static final long BUCKET_MILLIS = BUCKET.toMillis();
+
+    private final int bits;
+    private final int hashes;
+    private final ConcurrentNavigableMap<Long, AtomicLongArray> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param expectedPerBucket сколько отзывов ожидается на один час истечения
+     * @param falsePositiveRate допустимая доля ложных срабатываний при таком заполнении
+     */
+    RevokedTokenFilter(int expectedPerBucket, double falsePositiveRate) {
+        //классические формулы: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        double n = Math.max(1, expectedPerBucket);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.hashes = Math.max(1, (int) Math.round(bits / n * Math.log(2)));
+    }
+
+    void add(UUID jti, Instant expiresAt) {
+        AtomicLongArray words = buckets.computeIfAbsent(bucket(expiresAt), key -> new AtomicLongArray(words()));
+        long h1 = h1(jti);
+        long h2 = h2(jti);
+        for (int i = 0; i < hashes; i++) {
+            int bit = index(h1, h2, i);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current;
+            while (((current = words.get(word)) & mask) == 0
+                    && !words.compareAndSet(word, current, current | mask)) {
+                //другой поток поменял это слово,повторяем
+            }
+        }
+    }
+
+    boolean mightContain(UUID jti, Instant expiresAt) {
+        AtomicLongArray words = buckets.get(bucket(expiresAt));
+        if (words == null) {
+            return false;
+        }
+        long h1 = h1(jti);
+        long h2 = h2(jti);
+        for (int i = 0; i < hashes; i++) {
+            int bit = index(h1, h2, i);
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Выбрасывает корзины, все токены которых истекли к {@code now}; возвращает их число. */
+    int evictExpired(Instant now) {
+        //корзина k покрывает сроки [k*час,(k+1)*час): к концу часа истекли все её токены
+        Map<Long, AtomicLongArray> expired = buckets.headMap(Math.floorDiv(now.toEpochMilli(), BUCKET_MILLIS));
+        int evicted = expired.size();
+        expired.clear();
+        return evicted;
+    }
+
+    int buckets() {
+        return buckets.size();
+    }
+
+    int bitsPerBucket() {
+        return bits;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    private int words() {
+        return (bits + 63) >>> 6;
+    }
+
+    private static long bucket(Instant expiresAt) {
+        return Math.floorDiv(expiresAt.toEpochMilli(), BUCKET_MILLIS);
+    }
+
+    //двойное хеширование Кирша-Митценмахера: k индексов из двух 64-битных хешей
+    private int index(long h1, long h2, int i) {
+        return (int) Long.remainderUnsigned(h1 + i * h2, bits);
+    }
+
+    //у UUID v7 старшие биты - время,поэтому обе половины перемешиваются
+    private static long h1(UUID jti) {
+        return mix(jti.getMostSignificantBits() ^ Long.rotateLeft(jti.getLeastSignificantBits(), 32));
+    }
+
+    private static long h2(UUID jti) {
+        return mix(jti.getLeastSignificantBits() + 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    //финализатор MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.balybin.monkey_backend.config;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ведро токенов на ключ (email, адрес клиента) в памяти узла. Ведро хранится как одно число - момент, когда
+ * оно снова станет полным (GCRA, эквивалент token bucket): запрос проходит, если этот момент не дальше
+ * {@code burst - 1} интервалов от текущего, и сдвигает его на интервал. Ни токенов в double, ни отметок
+ * последнего пополнения, новая аллокация - только на первый запрос нового ключа.
+ * <p>
+ * Ключи разложены по полосам со своим монитором, так что запросы с разными ключами почти не ждут друг друга.
+ * Полоса - LinkedHashMap в порядке доступа с потолком размера. Ведро, которое уже полное, ничем не отличается от
+ * отсутствующего, поэтому такие ведра выбрасываются с холодного конца при каждом новом ключе. Если потолок всё
+ * равно достигнут (перебор случайных email), выбрасывается самый давний ключ.
+ */
+public class StripedRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    //сколько простаивающих ведер выбрасывается за один новый ключ: амортизированно O(1)
+    private static final int EVICT_PER_INSERT = 4;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param burst   сколько запросов подряд проходит с одного ключа
+     * @param period  за какое время ведро наполняется заново, то есть устойчивая скорость - burst за period
+     * @param maxKeys потолок числа ключей в памяти
+     */
+    public StripedRateLimiter(int burst, Duration period, int maxKeys) {
+        if (burst < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Expected a positive burst and period, got " + burst + "/" + period);
+        }
+        this.intervalNanos = Math.max(1, period.toNanos() / burst);
+        this.burstNanos = intervalNanos * (burst - 1);
+        int perStripe = Math.max(16, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /** Разбирает лимит вида {@code 5/1m}: 5 запросов подряд, ведро наполняется за минуту. */
+    public static StripedRateLimiter parse(String spec, int maxKeys) {
+        int slash = spec.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Expected <burst>/<period> like 5/1m, got " + spec);
+        }
+        return new StripedRateLimiter(Integer.parseInt(spec.substring(0, slash).trim()),
+                DurationStyle.detectAndParse(spec.substring(slash + 1).trim()), maxKeys);
+    }
+
+    /** {@code 0} - запрос проходит, иначе через сколько наносекунд пройдёт следующий. */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        int h = key.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                stripe.evictIdle(now);
+                bucket = new Bucket(now);
+                stripe.put(key, bucket);
+            }
+            //момент,когда ведро полное,не может быть в прошлом: лишние токены сверх burst не копятся
+            long fullAt = bucket.fullAt - now > 0 ? bucket.fullAt : now;
+            long ahead = fullAt - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            bucket.fullAt = fullAt + intervalNanos;
+            return 0;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+        private long fullAt;
+
+        private Bucket(long fullAt) {
+            this.fullAt = fullAt;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxSize;
+
+        private Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        private void evictIdle(long now) {
+            Iterator<Bucket> coldest = values().iterator();
+            for (int i = 0; i < EVICT_PER_INSERT && coldest.hasNext(); i++) {
+                if (coldest.next().fullAt - now > 0) {
+                    return;
+                }
+                coldest.remove();
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
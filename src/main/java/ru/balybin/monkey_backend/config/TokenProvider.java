@@ -1,69 +1,159 @@
 package ru.balybin.monkey_backend.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.stereotype.Service;
+import ru.balybin.monkey_backend.model.TimeOrderedUuid;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class TokenProvider {
 
-    private final SecretKey key;
+    /** Срок жизни access-токена. */
+    public static final Duration ACCESS_TOKEN_TTL = Duration.ofHours(24);
 
-    public TokenProvider(@Value("${auth.jwt.secret}") String jwtSecret) {
-        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+    private final Timer issueTimer;
+    private final Timer verifyValidTimer;
+    private final Timer verifyInvalidTimer;
+
+    @Autowired
+    public TokenProvider(JwtKeyRing keyRing, MeterRegistry meterRegistry) {
+        this.keyRing = keyRing;
+        this.issueTimer = Timer.builder("auth.token.issue").register(meterRegistry);
+        //промахи VerifiedTokenCache и интроспекция; исход - подпись и срок сошлись или нет
+        this.verifyValidTimer = Timer.builder("auth.token.verify").tag("outcome", "valid").register(meterRegistry);
+        this.verifyInvalidTimer = Timer.builder("auth.token.verify").tag("outcome", "invalid")
+                .register(meterRegistry);
+        //ключ проверки берётся сразу по kid из заголовка,без перебора набора
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown signing key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    /** Провайдер без метрик, для тестов и бенчмарков. */
+    public TokenProvider(JwtKeyRing keyRing) {
+        this(keyRing, new SimpleMeterRegistry());
+    }
+
+    /** Провайдер с одним ключом, для тестов и бенчмарков. */
+    public TokenProvider(String jwtSecret) {
+        this(JwtKeyRing.of("default", jwtSecret));
     }
 
     public String generateToken(Authentication auth, UUID userId) {
+        return generateToken(auth, userId, 0L);
+    }
+
+    public String generateToken(Authentication auth, UUID userId, long profileVersion) {
+        return generateToken(auth, userId, profileVersion, 0L);
+    }
+
+    public String generateToken(Authentication auth, UUID userId, long profileVersion, long tokenVersion) {
+        AuthEvents.TokenIssue event = new AuthEvents.TokenIssue();
+        event.begin();
+        long start = System.nanoTime();
         // Получаем роли пользователя
         String authorities = auth.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
-        String jwt= Jwts.builder().issuer("MONKEY_MESS")
-                .issuedAt(new Date()).expiration(new Date(new Date().getTime() + 86400000))
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+        String jwt= Jwts.builder().header().keyId(signingKey.kid()).and()
+                .issuer("MONKEY_MESS")
+                .id(TimeOrderedUuid.next().toString()) // jti,по нему токен можно отозвать до срока
+                .issuedAt(new Date()).expiration(new Date(new Date().getTime() + ACCESS_TOKEN_TTL.toMillis()))
                 .claim("email", auth.getName())
                 .claim("userId", userId != null ? userId.toString() : null)
                 .claim("authorities", authorities) // Добавляем authorities в токен
-                .signWith(key)
+                .claim("pv", profileVersion) // версия профиля,по ней /profile решает,можно ли верить claims
+                .claim("tv", tokenVersion) // версия токенов пользователя,logout-all гасит все меньшие
+                .signWith(signingKey.key())
                 .compact();
+        issueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = "success";
+            event.commit();
+        }
         return jwt;
     }
 
-    public String getEmailFromToken(String jwt) {
+    /**
+     * Единственное место,где проверяется подпись access-токена и разбираются его claims.
+     * Все остальные методы и {@link JwtTokenValidator} идут через него.
+     */
+    public UserPrincipal verify(String jwt) {
         // Обрабатываем случай, когда токен приходит с "Bearer " префиксом
         if (jwt.startsWith("Bearer ")) {
             jwt = jwt.substring(7);
         }
 
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(jwt)
-                .getPayload();
+        long start = System.nanoTime();
+        Claims claims;
+        try {
+            claims = parser
+                    .parseSignedClaims(jwt)
+                    .getPayload();
+        } catch (RuntimeException e) {
+            verifyInvalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        verifyValidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        String email = claims.get("email", String.class);
+        String userId = claims.get("userId", String.class);
+        String authorities = claims.get("authorities", String.class);
+
+        //Если authorities null, устанавливаем пустой список
+        List<GrantedAuthority> grantedAuthorities = (authorities != null)
+                ? AuthorityUtils.commaSeparatedStringToAuthorityList(authorities)
+                : AuthorityUtils.NO_AUTHORITIES;
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : null;
+        //у токенов,выданных до появления claim'а,версия считается нулевой
+        Number profileVersion = claims.get("pv", Number.class);
+        Number tokenVersion = claims.get("tv", Number.class);
+        UUID tokenId = claims.getId() != null ? UUID.fromString(claims.getId()) : null;
+
+        return new UserPrincipal(email, userId != null ? UUID.fromString(userId) : null,
+                grantedAuthorities, expiresAt, profileVersion != null ? profileVersion.longValue() : 0L,
+                tokenVersion != null ? tokenVersion.longValue() : 0L, tokenId);
+    }
 
-        String email = String.valueOf(claims.get("email"));
-        return email;
+    public String getEmailFromToken(String jwt) {
+        return verify(jwt).getEmail();
     }
 
     public UUID getUserIdFromToken(String jwt) {
-        if (jwt.startsWith("Bearer ")) {
-            jwt = jwt.substring(7);
-        }
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(jwt)
-                .getPayload();
-        String userId = String.valueOf(claims.get("userId"));
-        return userId != null ? UUID.fromString(userId) : null;
+        return verify(jwt).getUserId();
     }
 }
\ No newline at end of file
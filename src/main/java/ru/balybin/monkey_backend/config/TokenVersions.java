@@ -0,0 +1,136 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.balybin.monkey_backend.model.TokenRevocation;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Минимальные действительные версии токенов тех, кто делал logout-all. Проверка токена - один поиск в map
+ * на каждом запросе, в том числе для токенов из {@link VerifiedTokenCache}, поэтому кэш при отзыве не сбрасывается.
+ * <p>
+ * В map только отзывы за последние {@link TokenProvider#ACCESS_TOKEN_TTL}: выданные до более старого отзыва токены
+ * уже истекли сами. Свой отзыв узел видит сразу после коммита, отзывы с других узлов - раз в
+ * {@code auth.tokens.revocation.poll-seconds} по индексу на {@code users.tokens_revoked_at}.
+ */
+@Component
+public class TokenVersions {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersions.class);
+
+    //транзакция,закоммиченная чуть позже,может нести более раннее время отзыва
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final UserRepository userRepository;
+    private final long pollSeconds;
+    private final Map<UUID, TokenRevocation> revocations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller;
+
+    private volatile Instant lastPoll;
+
+    public TokenVersions(UserRepository userRepository,
+                         @Value("${auth.tokens.revocation.poll-seconds:5}") long pollSeconds,
+                         MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.pollSeconds = pollSeconds;
+        this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "token-versions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("auth.tokens.revocations", revocations, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        //первая загрузка синхронно: узел не должен принимать отозванные токены даже несколько секунд
+        pollQuietly();
+        if (pollSeconds > 0) {
+            poller.scheduleWithFixedDelay(this::pollQuietly, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /** {@code true} - токен выпущен до последнего logout-all своего пользователя. */
+    public boolean isRevoked(UserPrincipal principal) {
+        if (revocations.isEmpty() || principal.getUserId() == null) {
+            return false;
+        }
+        TokenRevocation revocation = revocations.get(principal.getUserId());
+        return revocation != null && principal.getTokenVersion() < revocation.version();
+    }
+
+    /**
+     * Версия для нового токена. Пользователь может прийти из кэша, который ещё не знает о свежем logout-all
+     * на другом узле, а токен со старой версией отклонили бы сразу после выдачи.
+     */
+    public long current(UUID userId, long storedVersion) {
+        TokenRevocation revocation = revocations.get(userId);
+        return revocation != null ? Math.max(storedVersion, revocation.version()) : storedVersion;
+    }
+
+    /** Отзыв, сделанный на этом узле; внутри транзакции - после коммита. */
+    public void revoked(TokenRevocation revocation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(revocation);
+                }
+            });
+        } else {
+            apply(revocation);
+        }
+    }
+
+    /** Подтягивает отзывы с других узлов и забывает те, после которых все старые токены уже истекли. */
+    synchronized void poll() {
+        Instant now = Instant.now();
+        Instant horizon = now.minus(TokenProvider.ACCESS_TOKEN_TTL);
+        Instant since = lastPoll != null && lastPoll.minus(POLL_OVERLAP).isAfter(horizon)
+                ? lastPoll.minus(POLL_OVERLAP)
+                : horizon;
+        for (TokenRevocation revocation : userRepository.findTokenRevocationsAfter(since)) {
+            apply(revocation);
+        }
+        revocations.values().removeIf(revocation -> revocation.revokedAt().isBefore(horizon));
+        lastPoll = now;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    private void apply(TokenRevocation revocation) {
+        //версии только растут,при гонке опроса и локального отзыва остаётся большая
+        revocations.merge(revocation.userId(), revocation,
+                (current, fresh) -> fresh.version() > current.version() ? fresh : current);
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            //остаёмся на прежнем наборе,следующий опрос захватит пропущенное окно
+            log.warn("Token revocations poll failed", e);
+        }
+    }
+}
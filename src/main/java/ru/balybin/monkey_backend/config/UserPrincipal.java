@@ -0,0 +1,84 @@
+package ru.balybin.monkey_backend.config;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Проверенные claims access-токена. Создаётся один раз в {@link JwtTokenValidator} и дальше
+ * достаётся из SecurityContext через {@code @AuthenticationPrincipal}, чтобы никто не разбирал токен повторно.
+ */
+public class UserPrincipal implements Principal, Serializable {
+
+    private final String email;
+    private final UUID userId;
+    private final List<GrantedAuthority> authorities;
+    private final Instant expiresAt;
+    private final long profileVersion;
+    private final long tokenVersion;
+    private final UUID tokenId;
+
+    public UserPrincipal(String email, UUID userId, List<GrantedAuthority> authorities, Instant expiresAt,
+                         long profileVersion) {
+        this(email, userId, authorities, expiresAt, profileVersion, 0L);
+    }
+
+    public UserPrincipal(String email, UUID userId, List<GrantedAuthority> authorities, Instant expiresAt,
+                         long profileVersion, long tokenVersion) {
+        this(email, userId, authorities, expiresAt, profileVersion, tokenVersion, null);
+    }
+
+    public UserPrincipal(String email, UUID userId, List<GrantedAuthority> authorities, Instant expiresAt,
+                         long profileVersion, long tokenVersion, UUID tokenId) {
+        this.email = email;
+        this.userId = userId;
+        this.authorities = authorities;
+        this.expiresAt = expiresAt;
+        this.profileVersion = profileVersion;
+        this.tokenVersion = tokenVersion;
+        this.tokenId = tokenId;
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public long getProfileVersion() {
+        return profileVersion;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /** {@code jti} токена; {@code null} у токенов, выданных до его появления. */
+    public UUID getTokenId() {
+        return tokenId;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
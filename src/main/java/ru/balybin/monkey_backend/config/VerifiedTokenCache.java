@@ -0,0 +1,122 @@
+package ru.balybin.monkey_backend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Кэш уже проверенных access-токенов: один и тот же токен приходит тысячи раз за свои 24 часа,
+ * поэтому подпись и claims проверяем один раз, а дальше отдаём готовый {@link Authentication}.
+ * Ключ - SHA-256 от токена (сам токен в памяти не храним), запись живёт ровно до {@code exp}.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Cache<Digest, Entry> cache;
+    private final MessageDigest sha256;
+
+    public VerifiedTokenCache(@Value("${auth.jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${auth.jwt.cache.max-size:10000}") long maxSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpireAtTokenExp())
+                .recordStats()
+                .build();
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+    }
+
+    /**
+     * Возвращает аутентификацию из кэша или проверяет токен через {@code verifier} и кладёт результат в кэш.
+     * Исключения верификатора пробрасываются как есть, невалидные токены не кэшируются.
+     */
+    public Authentication get(String jwt, Function<String, Verified> verifier) {
+        if (!enabled) {
+            return verifier.apply(jwt).authentication();
+        }
+        Digest digest = digest(jwt);
+        Entry cached = cache.getIfPresent(digest);
+        if (cached != null) {
+            return cached.authentication();
+        }
+        Verified verified = verifier.apply(jwt);
+        if (verified.expiresAt() != null) {
+            cache.put(digest, new Entry(verified.authentication(), verified.expiresAt().toEpochMilli()));
+        }
+        return verified.authentication();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private Digest digest(String jwt) {
+        MessageDigest md;
+        try {
+            md = (MessageDigest) sha256.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer hash = ByteBuffer.wrap(md.digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+        return new Digest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    /** Результат проверки токена: готовая аутентификация и время истечения токена. */
+    public record Verified(Authentication authentication, Instant expiresAt) {
+
+        /* Создаем аутентификационный объект с проверенными claims в качестве principal,
+        затем он устанавливается в контекст безопасности.*/
+        public static Verified of(UserPrincipal principal) {
+            Authentication authentication = new UsernamePasswordAuthenticationToken(principal, null,
+                    principal.getAuthorities());
+            return new Verified(authentication, principal.getExpiresAt());
+        }
+    }
+
+    private record Digest(long h0, long h1, long h2, long h3) {}
+
+    private record Entry(Authentication authentication, long expiresAtMillis) {}
+
+    private static class ExpireAtTokenExp implements Expiry<Digest, Entry> {
+
+        @Override
+        public long expireAfterCreate(Digest key, Entry value, long currentTime) {
+            long millisLeft = value.expiresAtMillis() - System.currentTimeMillis();
+            return Math.max(0L, millisLeft) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(Digest key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Digest key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,26 +1,41 @@
 package ru.balybin.monkey_backend.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import ru.balybin.monkey_backend.DTO.request.LoginRequest;
 import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
 import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+import ru.balybin.monkey_backend.config.AuthMetrics;
+import ru.balybin.monkey_backend.config.AuthRateLimits;
 import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.config.TokenVersions;
 import ru.balybin.monkey_backend.config.UserMapper;
+import ru.balybin.monkey_backend.config.UserPrincipal;
 import ru.balybin.monkey_backend.exception.UserException;
 import ru.balybin.monkey_backend.model.User;
-import ru.balybin.monkey_backend.model.RefreshToken;
 import ru.balybin.monkey_backend.service.RefreshTokenService;
 import ru.balybin.monkey_backend.service.UserService;
 import ru.balybin.monkey_backend.DTO.request.RefreshRequest;
 import ru.balybin.monkey_backend.DTO.request.LogoutRequest;
+import ru.balybin.monkey_backend.DTO.request.RevokeRequest;
+import ru.balybin.monkey_backend.DTO.request.IntrospectRequest;
+import ru.balybin.monkey_backend.DTO.response.IntrospectResponse;
+import ru.balybin.monkey_backend.DTO.response.TokenIntrospection;
+import ru.balybin.monkey_backend.service.TokenIntrospectionService;
 import org.springframework.http.HttpStatus;
 
+import java.util.List;
+import java.util.UUID;
+
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/auth")
 public class AuthController  {
     private final UserService userService;
@@ -28,58 +43,83 @@ public class AuthController  {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final RefreshTokenService refreshTokenService;
+    private final TokenIntrospectionService introspectionService;
+    private final TokenVersions tokenVersions;
+    private final AuthMetrics authMetrics;
+    private final AuthRateLimits rateLimits;
 
     public AuthController(UserService userService, TokenProvider tokenProvider,
                           UserMapper userMapper, PasswordEncoder passwordEncoder,
-                          RefreshTokenService refreshTokenService) {
+                          RefreshTokenService refreshTokenService,
+                          TokenIntrospectionService introspectionService, TokenVersions tokenVersions,
+                          AuthMetrics authMetrics, AuthRateLimits rateLimits) {
         this.userService = userService;
         this.tokenProvider = tokenProvider;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
         this.refreshTokenService = refreshTokenService;
+        this.introspectionService = introspectionService;
+        this.tokenVersions = tokenVersions;
+        this.authMetrics = authMetrics;
+        this.rateLimits = rateLimits;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-        User user = userMapper.toEntity(request);
-        User savedUser = userService.registerUser(user);
-        Authentication auth = new UsernamePasswordAuthenticationToken(savedUser.getEmail(), null);
-        String jwt = tokenProvider.generateToken(auth, savedUser.getId());
-        RefreshToken refresh = refreshTokenService.create(savedUser.getId());
-        AuthResponse authResponse = new AuthResponse(savedUser.getId(), jwt, refresh.getToken());
-        return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);
+    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request,
+                                                 HttpServletRequest httpRequest) {
+        try {
+            rateLimits.checkRegister(request.getEmail(), httpRequest.getRemoteAddr());
+            User user = userMapper.toEntity(request);
+            User savedUser = userService.registerUser(user);
+            String jwt = accessToken(savedUser);
+            RefreshTokenService.Issued refresh = refreshTokenService.create(savedUser.getId());
+            AuthResponse authResponse = new AuthResponse(savedUser.getId(), jwt, refresh.token());
+            authMetrics.success(AuthMetrics.Operation.REGISTER);
+            return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);
+        } catch (RuntimeException e) {
+            authMetrics.failure(AuthMetrics.Operation.REGISTER, e);
+            throw e;
+        }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        User user = userService.findUserByEmail(request.getEmail());
-        if(!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new UserException("Wrong password");
-        }
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
+                                              HttpServletRequest httpRequest) {
+        try {
+            //до базы и BCrypt: перебор паролей упирается в лимит,а не в CPU
+            rateLimits.checkLogin(request.getEmail(), httpRequest.getRemoteAddr());
+            User user = userService.findUserByEmail(request.getEmail());
+            if(!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+                throw new UserException("Wrong password");
+            }
 
-        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
-
-        String jwt = tokenProvider.generateToken(auth, user.getId());
-        RefreshToken refresh = refreshTokenService.create(user.getId());
-        AuthResponse authResponse = new AuthResponse(user.getId(), jwt, refresh.getToken());
+            String jwt = accessToken(user);
+            RefreshTokenService.Issued refresh = refreshTokenService.create(user.getId());
+            AuthResponse authResponse = new AuthResponse(user.getId(), jwt, refresh.token());
+            authMetrics.success(AuthMetrics.Operation.LOGIN);
 
-        return ResponseEntity.ok(authResponse);
+            return ResponseEntity.ok(authResponse);
+        } catch (RuntimeException e) {
+            authMetrics.failure(AuthMetrics.Operation.LOGIN, e);
+            throw e;
+        }
     }
 
     @PostMapping("/refresh")
     public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
-        RefreshToken existing = refreshTokenService.validate(request.getRefreshToken());
-        User user = userService.findUserById(existing.getUserId());
+        try {
+            // rotate refresh: подпись и срок проверяются в памяти,в базе - один UPDATE поколения семейства
+            RefreshTokenService.Issued newRefresh = refreshTokenService.rotate(request.getRefreshToken());
+            User user = userService.findUserById(newRefresh.userId());
+            String newAccess = accessToken(user);
 
-        // rotate refresh
-        refreshTokenService.delete(request.getRefreshToken());
-        RefreshToken newRefresh = refreshTokenService.create(user.getId());
-
-        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
-        String newAccess = tokenProvider.generateToken(auth, user.getId());
-
-        AuthResponse authResponse = new AuthResponse(user.getId(), newAccess, newRefresh.getToken());
-        return ResponseEntity.ok(authResponse);
+            AuthResponse authResponse = new AuthResponse(user.getId(), newAccess, newRefresh.token());
+            authMetrics.success(AuthMetrics.Operation.REFRESH);
+            return ResponseEntity.ok(authResponse);
+        } catch (RuntimeException e) {
+            authMetrics.failure(AuthMetrics.Operation.REFRESH, e);
+            throw e;
+        }
     }
 
     @PostMapping("/logout")
@@ -87,4 +127,37 @@ public class AuthController  {
         refreshTokenService.delete(request.getRefreshToken());
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal UserPrincipal principal) {
+        // версия токенов растёт,все выданные access- и refresh-токены пользователя сразу недействительны
+        userService.logoutEverywhere(principal.getUserId());
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@AuthenticationPrincipal UserPrincipal principal,
+                                       @Valid @RequestBody RevokeRequest request) {
+        // только этот токен,остальные сессии пользователя живут
+        introspectionService.revokeToken(principal.getUserId(), request.getAccessToken());
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/introspect")
+    public ResponseEntity<IntrospectResponse> introspect(@Valid @RequestBody IntrospectRequest request) {
+        // подписи и claims из кэша проверенных токенов,база - только при проверке отзыва
+        List<TokenIntrospection> results = introspectionService.verify(request.getTokens());
+        if (request.isCheckRevocation()) {
+            List<UUID> missing = userService.findUsersByIds(introspectionService.userIds(results))
+                    .getMissingIds();
+            results = introspectionService.revoke(results, missing);
+        }
+        return ResponseEntity.ok(new IntrospectResponse(results));
+    }
+
+    private String accessToken(User user) {
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+        return tokenProvider.generateToken(auth, user.getId(), user.getProfileVersion(),
+                tokenVersions.current(user.getId(), user.getTokenVersion()));
+    }
 }
@@ -0,0 +1,51 @@
+package ru.balybin.monkey_backend.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import ru.balybin.monkey_backend.config.JwtKeyRing;
+
+import java.time.Duration;
+
+/**
+ * Открытые ключи подписи для сервисов, которые проверяют токены сами. Документ собирается один раз
+ * на версию набора ключей, поэтому ответ - готовые байты; по сильному ETag потребитель получает 304 без тела.
+ * Работает на обоих стеках: блокирующих вызовов здесь нет.
+ */
+@RestController
+public class JwksController {
+
+    public static final String JWKS_PATH = "/.well-known/jwks.json";
+    public static final String JWK_SET_JSON = "application/jwk-set+json";
+
+    private final JwtKeyRing keyRing;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing keyRing,
+                          @Value("${auth.jwt.jwks.max-age-seconds:300}") long maxAgeSeconds) {
+        this.keyRing = keyRing;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    //клиенты JWKS часто шлют Accept: application/json, тип ответа всё равно application/jwk-set+json
+    @GetMapping(value = JWKS_PATH, produces = {JWK_SET_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<byte[]> jwks(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                       String ifNoneMatch) {
+        JwtKeyRing.JwksDocument jwks = keyRing.jwks();
+        //If-None-Match может прийти списком ETag'ов
+        if (ifNoneMatch != null && (ifNoneMatch.contains(jwks.etag()) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(jwks.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(jwks.etag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(JWK_SET_JSON))
+                .body(jwks.json());
+    }
+}
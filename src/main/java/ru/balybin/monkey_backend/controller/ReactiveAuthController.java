@@ -0,0 +1,154 @@
+package ru.balybin.monkey_backend.controller;
+
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.balybin.monkey_backend.DTO.request.IntrospectRequest;
+import ru.balybin.monkey_backend.DTO.request.LoginRequest;
+import ru.balybin.monkey_backend.DTO.request.LogoutRequest;
+import ru.balybin.monkey_backend.DTO.request.RefreshRequest;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.request.RevokeRequest;
+import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+import ru.balybin.monkey_backend.DTO.response.IntrospectResponse;
+import ru.balybin.monkey_backend.config.AuthMetrics;
+import ru.balybin.monkey_backend.config.AuthRateLimits;
+import ru.balybin.monkey_backend.config.BoundedPasswordEncoder;
+import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.config.TokenVersions;
+import ru.balybin.monkey_backend.config.UserMapper;
+import ru.balybin.monkey_backend.config.UserPrincipal;
+import ru.balybin.monkey_backend.exception.UserException;
+import ru.balybin.monkey_backend.model.User;
+import ru.balybin.monkey_backend.service.ReactiveRefreshTokenService;
+import ru.balybin.monkey_backend.service.ReactiveUserService;
+import ru.balybin.monkey_backend.service.TokenIntrospectionService;
+
+import java.net.InetSocketAddress;
+
+//тот же контракт,что у AuthController,для профиля reactive
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/auth")
+public class ReactiveAuthController {
+    private final ReactiveUserService userService;
+    private final TokenProvider tokenProvider;
+    private final UserMapper userMapper;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final ReactiveRefreshTokenService refreshTokenService;
+    private final TokenIntrospectionService introspectionService;
+    private final TokenVersions tokenVersions;
+    private final AuthMetrics authMetrics;
+    private final AuthRateLimits rateLimits;
+
+    public ReactiveAuthController(ReactiveUserService userService, TokenProvider tokenProvider,
+                                  UserMapper userMapper, BoundedPasswordEncoder passwordEncoder,
+                                  ReactiveRefreshTokenService refreshTokenService,
+                                  TokenIntrospectionService introspectionService, TokenVersions tokenVersions,
+                                  AuthMetrics authMetrics, AuthRateLimits rateLimits) {
+        this.userService = userService;
+        this.tokenProvider = tokenProvider;
+        this.userMapper = userMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.refreshTokenService = refreshTokenService;
+        this.introspectionService = introspectionService;
+        this.tokenVersions = tokenVersions;
+        this.authMetrics = authMetrics;
+        this.rateLimits = rateLimits;
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request,
+                                                       ServerWebExchange exchange) {
+        return Mono.fromRunnable(() -> rateLimits.checkRegister(request.getEmail(), clientAddress(exchange)))
+                .then(Mono.defer(() -> userService.registerUser(userMapper.toEntity(request))))
+                .flatMap(this::issueTokens)
+                .map(authResponse -> ResponseEntity.status(HttpStatus.CREATED).body(authResponse))
+                .doOnSuccess(response -> authMetrics.success(AuthMetrics.Operation.REGISTER))
+                .doOnError(e -> authMetrics.failure(AuthMetrics.Operation.REGISTER, e));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request,
+                                                    ServerWebExchange exchange) {
+        //до базы и BCrypt: перебор паролей упирается в лимит,а не в CPU
+        return Mono.fromRunnable(() -> rateLimits.checkLogin(request.getEmail(), clientAddress(exchange)))
+                .then(Mono.defer(() -> userService.findUserByEmail(request.getEmail())))
+                .flatMap(user -> Mono.fromFuture(() -> passwordEncoder.matchesAsync(request.getPassword(), user.getPassword()))
+                        .flatMap(matches -> matches
+                                ? issueTokens(user)
+                                : Mono.error(new UserException("Wrong password"))))
+                .map(ResponseEntity::ok)
+                .doOnSuccess(response -> authMetrics.success(AuthMetrics.Operation.LOGIN))
+                .doOnError(e -> authMetrics.failure(AuthMetrics.Operation.LOGIN, e));
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<AuthResponse>> refresh(@Valid @RequestBody RefreshRequest request) {
+        return refreshTokenService.rotate(request.getRefreshToken())
+                .flatMap(newRefresh -> userService.findUserById(newRefresh.userId())
+                        .map(user -> new AuthResponse(user.getId(), accessToken(user), newRefresh.token())))
+                .map(ResponseEntity::ok)
+                .doOnSuccess(response -> authMetrics.success(AuthMetrics.Operation.REFRESH))
+                .doOnError(e -> authMetrics.failure(AuthMetrics.Operation.REFRESH, e));
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@Valid @RequestBody LogoutRequest request) {
+        return refreshTokenService.delete(request.getRefreshToken())
+                .then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @PostMapping("/logout-all")
+    public Mono<ResponseEntity<Void>> logoutAll(Authentication authentication) {
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        return userService.logoutEverywhere(principal.getUserId())
+                .then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @PostMapping("/revoke")
+    public Mono<ResponseEntity<Void>> revoke(Authentication authentication,
+                                             @Valid @RequestBody RevokeRequest request) {
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        //отзыв пишется через JPA,как и опрос отзывов,поэтому не на event loop'е
+        return Mono.fromRunnable(() -> introspectionService.revokeToken(principal.getUserId(),
+                        request.getAccessToken()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.just(ResponseEntity.ok().build()));
+    }
+
+    @PostMapping("/introspect")
+    public Mono<ResponseEntity<IntrospectResponse>> introspect(@Valid @RequestBody IntrospectRequest request) {
+        //сотни проверок подписи - работа для CPU,не для event loop'а
+        return Mono.fromCallable(() -> introspectionService.verify(request.getTokens()))
+                .subscribeOn(Schedulers.parallel())
+                .flatMap(results -> request.isCheckRevocation()
+                        ? userService.findUsersByIds(introspectionService.userIds(results))
+                                .map(users -> introspectionService.revoke(results, users.getMissingIds()))
+                        : Mono.just(results))
+                .map(results -> ResponseEntity.ok(new IntrospectResponse(results)));
+    }
+
+    private Mono<AuthResponse> issueTokens(User user) {
+        return refreshTokenService.create(user.getId())
+                .map(refresh -> new AuthResponse(user.getId(), accessToken(user), refresh.token()));
+    }
+
+    private String accessToken(User user) {
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+        return tokenProvider.generateToken(auth, user.getId(), user.getProfileVersion(),
+                tokenVersions.current(user.getId(), user.getTokenVersion()));
+    }
+
+    private static String clientAddress(ServerWebExchange exchange) {
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : null;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.balybin.monkey_backend.controller;
+
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
+import ru.balybin.monkey_backend.DTO.response.UserBatchResponse;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.DTO.response.UserProfileResponse;
+import ru.balybin.monkey_backend.DTO.response.UserSearchResponse;
+import ru.balybin.monkey_backend.config.UserMapper;
+import ru.balybin.monkey_backend.config.UserPrincipal;
+import ru.balybin.monkey_backend.service.ReactiveUserService;
+
+import java.util.List;
+import java.util.UUID;
+
+//тот же контракт,что у UserController,для профиля reactive
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/users")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+    private final UserMapper userMapper;
+
+    public ReactiveUserController(ReactiveUserService userService, UserMapper userMapper) {
+        this.userService = userService;
+        this.userMapper = userMapper;
+    }
+
+    //UserPrincipal - это java.security.Principal,и WebFlux подставил бы вместо него сам Authentication
+    @GetMapping("/profile")
+    public Mono<ResponseEntity<UserProfileResponse>> getUserProfile(Authentication authentication) {
+        return userService.findUserProfile((UserPrincipal) authentication.getPrincipal()).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/{userId}")
+    public Mono<ResponseEntity<UserProfileResponse>> updateUser(
+            @PathVariable UUID userId,
+            @Valid @RequestBody UpdateProfileRequest request) {
+        return userService.updateUser(userId, request).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<UserSearchResponse>> searchUsers(@RequestParam String query,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "20") int limit) {
+        return userService.searchUser(query, cursor, limit).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{userId}")
+    public Mono<ResponseEntity<UserInfoResponse>> getUserById(
+            @RequestHeader("Authorization") String jwt,
+            @PathVariable UUID userId) {
+        return userService.findUserById(userId)
+                .map(user -> ResponseEntity.ok(userMapper.toInfoResponse(user)));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<UserInfoResponse>>> getUsersByIds(
+            @RequestHeader("Authorization") String jwt,
+            @RequestBody List<UUID> userIds) {
+        return userService.findUsersByIds(userIds).map(batch ->
+                UserController.missingIdsHeader(ResponseEntity.ok(), batch.getMissingIds()).body(batch.getUsers()));
+    }
+
+    @PostMapping(value = "/batch", params = "includeMissing=true")
+    public Mono<ResponseEntity<UserBatchResponse>> getUsersByIdsWithMissing(
+            @RequestHeader("Authorization") String jwt,
+            @RequestBody List<UUID> userIds) {
+        return userService.findUsersByIds(userIds).map(ResponseEntity::ok);
+    }
+}
@@ -1,23 +1,34 @@
 package ru.balybin.monkey_backend.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
+import ru.balybin.monkey_backend.DTO.response.UserBatchResponse;
 import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
 import ru.balybin.monkey_backend.DTO.response.UserProfileResponse;
+import ru.balybin.monkey_backend.DTO.response.UserSearchResponse;
+import ru.balybin.monkey_backend.config.UserPrincipal;
 import ru.balybin.monkey_backend.model.User;
 import ru.balybin.monkey_backend.service.UserService;
 import ru.balybin.monkey_backend.config.UserMapper;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/users")
 public class UserController {
 
+    public static final String MISSING_IDS_HEADER = "X-Missing-User-Ids";
+    public static final String MISSING_IDS_TRUNCATED_HEADER = "X-Missing-User-Ids-Truncated";
+
+    //~55 UUID: заголовок должен пролезть в 8KB Tomcat и буферы прокси вместе с остальными
+    static final int MISSING_IDS_HEADER_LIMIT = 2048;
+
     private final UserService userService;
     private final UserMapper userMapper;
 
@@ -27,9 +38,9 @@ public class UserController {
     }
 
     @GetMapping("/profile")
-    public ResponseEntity<UserProfileResponse> getUserProfile(@RequestHeader("Authorization") String jwt) {
-        String token = jwt.startsWith("Bearer ") ? jwt.substring(7) : jwt;
-        UserProfileResponse user = userService.findUserProfile(token);
+    public ResponseEntity<UserProfileResponse> getUserProfile(@AuthenticationPrincipal UserPrincipal principal) {
+        // claims уже разобраны JwtTokenValidator'ом
+        UserProfileResponse user = userService.findUserProfile(principal);
         return ResponseEntity.ok(user);
     }
 
@@ -42,9 +53,11 @@ public class UserController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<User>> searchUsers(@RequestParam String query) {
-        List<User> users = userService.searchUser(query);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UserSearchResponse> searchUsers(@RequestParam String query,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        UserSearchResponse page = userService.searchUser(query, cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/{userId}")
@@ -62,17 +75,37 @@ public class UserController {
             @RequestHeader("Authorization") String jwt,
             @RequestBody List<UUID> userIds) {
         // Валидация токена происходит через JwtTokenValidator
-        List<UserInfoResponse> users = userIds.stream()
-                .map(userId -> {
-                    try {
-                        User user = userService.findUserById(userId);
-                        return userMapper.toInfoResponse(user);
-                    } catch (Exception e) {
-                        return null; // Или можно выбросить исключение
-                    }
-                })
-                .filter(user -> user != null)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+        UserBatchResponse batch = userService.findUsersByIds(userIds);
+        //тело остаётся массивом для chat-microservice,не найденные id отдаём заголовком
+        return missingIdsHeader(ResponseEntity.ok(), batch.getMissingIds()).body(batch.getUsers());
+    }
+
+    //полный список не найденных id - в теле,без ограничения на размер
+    @PostMapping(value = "/batch", params = "includeMissing=true")
+    public ResponseEntity<UserBatchResponse> getUsersByIdsWithMissing(
+            @RequestHeader("Authorization") String jwt,
+            @RequestBody List<UUID> userIds) {
+        return ResponseEntity.ok(userService.findUsersByIds(userIds));
+    }
+
+    /* Не найденные id через запятую,пока заголовок не длиннее MISSING_IDS_HEADER_LIMIT. Если не влезли все,
+    ставится MISSING_IDS_TRUNCATED_HEADER: полный список отдаёт /batch?includeMissing=true */
+    static ResponseEntity.BodyBuilder missingIdsHeader(ResponseEntity.BodyBuilder response, List<UUID> missingIds) {
+        if (missingIds.isEmpty()) {
+            return response;
+        }
+        StringBuilder header = new StringBuilder();
+        for (UUID id : missingIds) {
+            String value = id.toString();
+            if (header.length() + value.length() + 1 > MISSING_IDS_HEADER_LIMIT) {
+                response.header(MISSING_IDS_TRUNCATED_HEADER, "true");
+                break;
+            }
+            if (!header.isEmpty()) {
+                header.append(',');
+            }
+            header.append(value);
+        }
+        return response.header(MISSING_IDS_HEADER, header.toString());
     }
 }
@@ -1,5 +1,7 @@
 package ru.balybin.monkey_backend.exception;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -13,6 +15,7 @@ import org.springframework.web.servlet.NoHandlerFoundException;
 import java.time.LocalDateTime;
 
 @RestControllerAdvice
+@Profile("!reactive")
 public class GlobalException {
 
     @ExceptionHandler(UserException.class)
@@ -29,6 +32,23 @@ public class GlobalException {
         return new ResponseEntity<>(errorDetail, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(TooManyAttemptsException.class)
+    public ResponseEntity<ErrorDetail> tooManyAttemptsExceptionHandler(TooManyAttemptsException e) {
+        ErrorDetail errorDetail = new ErrorDetail("TOO_MANY_ATTEMPTS", e.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(errorDetail);
+    }
+
+    @ExceptionHandler(PasswordHashingOverloadException.class)
+    public ResponseEntity<ErrorDetail> passwordHashingOverloadExceptionHandler(
+            PasswordHashingOverloadException e, WebRequest req) {
+        ErrorDetail errorDetail = new ErrorDetail("SERVICE_OVERLOADED", e.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorDetail);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorDetail> methodArgumentNotValidExceptionHandler(
             MethodArgumentNotValidException e, WebRequest req){
@@ -0,0 +1,7 @@
+package ru.balybin.monkey_backend.exception;
+
+public class PasswordHashingOverloadException extends RuntimeException {
+    public PasswordHashingOverloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.balybin.monkey_backend.exception;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.LocalDateTime;
+
+//ответы об ошибках в том же формате,что у GlobalException,для профиля reactive
+@RestControllerAdvice
+@Profile("reactive")
+public class ReactiveGlobalException {
+
+    @ExceptionHandler(UserException.class)
+    public ResponseEntity<ErrorDetail> userExceptionHandler(UserException e, ServerWebExchange exchange) {
+        ErrorDetail errorDetail = new ErrorDetail(e.getMessage(),
+                "uri=" + exchange.getRequest().getPath().value(), LocalDateTime.now());
+        return new ResponseEntity<>(errorDetail, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(TooManyAttemptsException.class)
+    public ResponseEntity<ErrorDetail> tooManyAttemptsExceptionHandler(TooManyAttemptsException e) {
+        ErrorDetail errorDetail = new ErrorDetail("TOO_MANY_ATTEMPTS", e.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(errorDetail);
+    }
+
+    @ExceptionHandler(PasswordHashingOverloadException.class)
+    public ResponseEntity<ErrorDetail> passwordHashingOverloadExceptionHandler(PasswordHashingOverloadException e) {
+        ErrorDetail errorDetail = new ErrorDetail("SERVICE_OVERLOADED", e.getMessage(), LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorDetail);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorDetail> webExchangeBindExceptionHandler(WebExchangeBindException e) {
+        String error = e.getBindingResult().getFieldError().getDefaultMessage();
+        ErrorDetail errorDetail = new ErrorDetail("VALIDATION_ERROR", error, LocalDateTime.now());
+        return new ResponseEntity<>(errorDetail, HttpStatus.BAD_REQUEST);
+    }
+
+    //неразобранное тело,неверный UUID в пути,404 и т.п. - сохраняем статус WebFlux
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorDetail> responseStatusExceptionHandler(ResponseStatusException e) {
+        ErrorDetail errorDetail = new ErrorDetail(e.getStatusCode().toString(), e.getReason(), LocalDateTime.now());
+        return new ResponseEntity<>(errorDetail, e.getStatusCode());
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ErrorDetail> authenticationExceptionHandler(AuthenticationException e) {
+        ErrorDetail errorDetail = new ErrorDetail("AUTH_ERROR", e.getMessage(), LocalDateTime.now());
+        return new ResponseEntity<>(errorDetail, HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorDetail> otherExceptionHandler(Exception e) {
+        ErrorDetail errorDetail = new ErrorDetail("INTERNAL_ERROR",
+                "An unexpected error occurred", LocalDateTime.now());
+        return new ResponseEntity<>(errorDetail, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.balybin.monkey_backend.exception;
+
+//Без стектрейса: при переборе паролей таких исключений тысячи в секунду,отказ должен быть дешевле проверки
+public class TooManyAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyAttemptsException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,21 +1,27 @@
 package ru.balybin.monkey_backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.UuidGenerator;
 
 import java.time.Instant;
 import java.util.UUID;
 
+/**
+ * Семейство refresh-токенов: цепочка ротаций от одного логина. Сами токены подписаны и в базе не хранятся
+ * (см. {@link ru.balybin.monkey_backend.config.RefreshTokenCodec}), строка держит только номер текущего поколения.
+ * {@code token} заполнен лишь у старых непрозрачных токенов, выданных до перехода на подписанный формат.
+ */
 @Entity
 @Table(name = "refresh_tokens")
 public class RefreshToken {
 
     @Id
     @GeneratedValue
-    @UuidGenerator(style = UuidGenerator.Style.RANDOM)
+    @UuidGenerator(algorithm = TimeOrderedUuid.class)
     private UUID id;
 
-    @Column(nullable = false, unique = true)
+    @Column(unique = true)
     private String token;
 
     @Column(nullable = false)
@@ -24,6 +30,11 @@ public class RefreshToken {
     @Column(nullable = false)
     private Instant expiresAt;
 
+    //растёт на каждой ротации,действителен только токен с текущим поколением
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long generation;
+
     public RefreshToken() {}
 
     public RefreshToken(String token, UUID userId, Instant expiresAt) {
@@ -63,6 +74,14 @@ public class RefreshToken {
     public void setExpiresAt(Instant expiresAt) {
         this.expiresAt = expiresAt;
     }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
 }
 
 
@@ -0,0 +1,68 @@
+package ru.balybin.monkey_backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Отозванный до срока access-токен. Ключ - {@code jti} токена, строка нужна только до {@code expiresAt}:
+ * после него токен отклоняется и без неё.
+ */
+@Entity
+@Table(name = "revoked_access_tokens")
+public class RevokedAccessToken {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+
+    public RevokedAccessToken() {}
+
+    public RevokedAccessToken(UUID id, UUID userId, Instant expiresAt, Instant revokedAt) {
+        this.id = id;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
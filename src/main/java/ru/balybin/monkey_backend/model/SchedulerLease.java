@@ -0,0 +1,55 @@
+package ru.balybin.monkey_backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Аренда фоновой задачи: задачу с этим именем выполняет только {@code owner} и только до {@code leaseUntil}.
+ * Так фоновые задачи не запускаются одновременно на нескольких узлах, а упавший узел держит аренду не дольше срока.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private Instant leaseUntil;
+
+    public SchedulerLease() {}
+
+    public SchedulerLease(String name, String owner, Instant leaseUntil) {
+        this.name = name;
+        this.owner = owner;
+        this.leaseUntil = leaseUntil;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(Instant leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+}
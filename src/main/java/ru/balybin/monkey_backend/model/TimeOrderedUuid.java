@@ -0,0 +1,42 @@
+package ru.balybin.monkey_backend.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUID версии 7 (RFC 9562): старшие 48 бит - миллисекунды Unix-времени, поэтому новые ключи ложатся в конец
+ * B-дерева первичного ключа, а не в случайную страницу, как у v4. Поле rand_a (12 бит) - счётчик внутри
+ * миллисекунды: ключи одного процесса строго возрастают, при переполнении счётчика время сдвигается на 1 мс вперёд.
+ * Младшие 62 бита случайные.
+ */
+public class TimeOrderedUuid implements UuidValueGenerator {
+
+    private static final int COUNTER_BITS = 12;
+
+    //миллисекунды и счётчик одним числом,чтобы сдвигать их одним CAS
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+        long candidate = System.currentTimeMillis() << COUNTER_BITS;
+        long stamp = LAST.accumulateAndGet(candidate, (last, now) -> Math.max(last + 1, now));
+        long msb = (stamp >>> COUNTER_BITS) << 16
+                | 0x7000L
+                | (stamp & ((1L << COUNTER_BITS) - 1));
+        long lsb = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /** Момент создания ключа с точностью до миллисекунды. */
+    public static long timestampMillis(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+}
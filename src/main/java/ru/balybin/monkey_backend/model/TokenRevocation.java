@@ -0,0 +1,7 @@
+package ru.balybin.monkey_backend.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Последний logout-all пользователя: токены с версией меньше {@code version} недействительны. */
+public record TokenRevocation(UUID userId, long version, Instant revokedAt) {}
@@ -2,8 +2,10 @@ package ru.balybin.monkey_backend.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.UuidGenerator;
 
+import java.time.Instant;
 import java.util.UUID;
 
 
@@ -12,7 +14,7 @@ import java.util.UUID;
 public class User {
     @Id
     @GeneratedValue
-    @UuidGenerator(style = UuidGenerator.Style.RANDOM)
+    @UuidGenerator(algorithm = TimeOrderedUuid.class)
     private UUID id;
 
     @Column(unique = true, nullable = false)
@@ -22,6 +24,21 @@ public class User {
     @JsonIgnore
     private String password;
 
+    //растёт при каждом изменении профиля,попадает в access-токен как claim "pv"
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private long profileVersion;
+
+    //растёт при logout-all,попадает в access-токен как claim "tv"; токены с меньшей версией отклоняются
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private long tokenVersion;
+
+    @JsonIgnore
+    private Instant tokensRevokedAt;
+
     public User() {}
 
     public User(UUID id, String email, String password) {
@@ -56,4 +73,28 @@ public class User {
         this.password = password;
     }
 
+    public long getProfileVersion() {
+        return profileVersion;
+    }
+
+    public void setProfileVersion(long profileVersion) {
+        this.profileVersion = profileVersion;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    public Instant getTokensRevokedAt() {
+        return tokensRevokedAt;
+    }
+
+    public void setTokensRevokedAt(Instant tokensRevokedAt) {
+        this.tokensRevokedAt = tokensRevokedAt;
+    }
+
 }
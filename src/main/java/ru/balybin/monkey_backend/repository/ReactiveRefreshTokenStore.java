@@ -0,0 +1,91 @@
+package ru.balybin.monkey_backend.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import ru.balybin.monkey_backend.model.RefreshToken;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Таблица {@code refresh_tokens} через R2DBC для реактивного профиля. */
+@Repository
+@Profile("reactive")
+public class ReactiveRefreshTokenStore {
+
+    private final DatabaseClient db;
+
+    public ReactiveRefreshTokenStore(DatabaseClient db) {
+        this.db = db;
+    }
+
+    //новое семейство подписанных токенов,значения токена в строке нет
+    public Mono<RefreshToken> insertFamily(RefreshToken family) {
+        return db.sql("INSERT INTO refresh_tokens (id, user_id, expires_at, generation) " +
+                        "VALUES (:id, :userId, :expiresAt, :generation)")
+                .bind("id", family.getId())
+                .bind("userId", family.getUserId())
+                .bind("expiresAt", family.getExpiresAt())
+                .bind("generation", family.getGeneration())
+                .then()
+                .thenReturn(family);
+    }
+
+    //как RefreshTokenRepository.advanceGeneration: 0 - поколение уже не текущее или семейства нет
+    public Mono<Long> advanceGeneration(UUID id, long generation, Instant expiresAt) {
+        return db.sql("UPDATE refresh_tokens SET generation = generation + 1, expires_at = :expiresAt " +
+                        "WHERE id = :id AND generation = :generation")
+                .bind("expiresAt", expiresAt)
+                .bind("id", id)
+                .bind("generation", generation)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    //как RefreshTokenRepository.findByTokenForUpdate: работает только внутри транзакции
+    public Mono<RefreshToken> findByTokenForUpdate(String token) {
+        return db.sql("SELECT id, token, user_id, expires_at, generation FROM refresh_tokens " +
+                        "WHERE token = :token FOR UPDATE")
+                .bind("token", token)
+                .map(ReactiveRefreshTokenStore::toToken)
+                .one();
+    }
+
+    //старый непрозрачный токен становится семейством: значение стирается,поколение растёт
+    public Mono<Void> convertToFamily(UUID id, long generation, Instant expiresAt) {
+        return db.sql("UPDATE refresh_tokens SET token = NULL, generation = :generation, expires_at = :expiresAt " +
+                        "WHERE id = :id")
+                .bind("generation", generation)
+                .bind("expiresAt", expiresAt)
+                .bind("id", id)
+                .then();
+    }
+
+    public Mono<Void> deleteById(UUID id) {
+        return db.sql("DELETE FROM refresh_tokens WHERE id = :id")
+                .bind("id", id)
+                .then();
+    }
+
+    public Mono<Void> deleteByToken(String token) {
+        return db.sql("DELETE FROM refresh_tokens WHERE token = :token")
+                .bind("token", token)
+                .then();
+    }
+
+    public Mono<Void> deleteAllByUserId(UUID userId) {
+        return db.sql("DELETE FROM refresh_tokens WHERE user_id = :userId")
+                .bind("userId", userId)
+                .then();
+    }
+
+    private static RefreshToken toToken(Readable row) {
+        RefreshToken token = new RefreshToken(row.get("token", String.class), row.get("user_id", UUID.class),
+                row.get("expires_at", Instant.class));
+        token.setId(row.get("id", UUID.class));
+        token.setGeneration(row.get("generation", Long.class));
+        return token;
+    }
+}
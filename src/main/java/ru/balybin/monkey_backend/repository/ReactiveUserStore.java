@@ -0,0 +1,142 @@
+package ru.balybin.monkey_backend.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.model.User;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Таблица {@code users} через R2DBC для реактивного профиля. Запросы те же,что у {@link UserRepository},
+ * только на SQL: схему создают миграции Flyway, сущность {@link User} её только описывает.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveUserStore {
+
+    private static final String COLUMNS = "id, email, password, profile_version, token_version";
+
+    private final DatabaseClient db;
+
+    public ReactiveUserStore(DatabaseClient db) {
+        this.db = db;
+    }
+
+    public Mono<User> insert(User user) {
+        return db.sql("INSERT INTO users (" + COLUMNS + ") VALUES (:id, :email, :password, :version, :tokenVersion)")
+                .bind("id", user.getId())
+                .bind("email", user.getEmail())
+                .bind("password", user.getPassword())
+                .bind("version", user.getProfileVersion())
+                .bind("tokenVersion", user.getTokenVersion())
+                .then()
+                .thenReturn(user);
+    }
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return db.sql("SELECT COUNT(*) FROM users WHERE email = :email")
+                .bind("email", email)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Mono<User> findByEmail(String email) {
+        return db.sql("SELECT " + COLUMNS + " FROM users WHERE email = :email")
+                .bind("email", email)
+                .map(ReactiveUserStore::toUser)
+                .one();
+    }
+
+    public Mono<User> findById(UUID id) {
+        return db.sql("SELECT " + COLUMNS + " FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserStore::toUser)
+                .one();
+    }
+
+    public Flux<UserInfoResponse> findByIdIn(Collection<UUID> ids) {
+        return db.sql("SELECT id, email FROM users WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveUserStore::toInfo)
+                .all();
+    }
+
+    public Mono<Long> findProfileVersionById(UUID id) {
+        return db.sql("SELECT profile_version FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get("profile_version", Long.class))
+                .one();
+    }
+
+    public Mono<Void> updateEmail(UUID id, String email, long profileVersion) {
+        return db.sql("UPDATE users SET email = :email, profile_version = :version WHERE id = :id")
+                .bind("email", email)
+                .bind("version", profileVersion)
+                .bind("id", id)
+                .then();
+    }
+
+    //как UserRepository.revokeTokens: 0 - пользователя нет
+    public Mono<Long> revokeTokens(UUID id, Instant now) {
+        return db.sql("UPDATE users SET token_version = token_version + 1, tokens_revoked_at = :now WHERE id = :id")
+                .bind("now", now)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> findTokenVersionById(UUID id) {
+        return db.sql("SELECT token_version FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get("token_version", Long.class))
+                .one();
+    }
+
+    //те же две группы и тот же ключ (email,id),что у UserRepository.searchByPrefix/searchBySubstring
+    public Flux<UserInfoResponse> searchByPrefix(String prefix, String afterEmail, UUID afterId, int limit) {
+        return db.sql("SELECT id, email FROM users " +
+                        "WHERE LOWER(email) LIKE :prefix ESCAPE '\\' " +
+                        "AND (LOWER(email) > :afterEmail OR (LOWER(email) = :afterEmail AND id > :afterId)) " +
+                        "ORDER BY LOWER(email), id LIMIT :limit")
+                .bind("prefix", prefix)
+                .bind("afterEmail", afterEmail)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveUserStore::toInfo)
+                .all();
+    }
+
+    public Flux<UserInfoResponse> searchBySubstring(String contains, String prefix, String afterEmail,
+                                                    UUID afterId, int limit) {
+        return db.sql("SELECT id, email FROM users " +
+                        "WHERE LOWER(email) LIKE :contains ESCAPE '\\' AND LOWER(email) NOT LIKE :prefix ESCAPE '\\' " +
+                        "AND (LOWER(email) > :afterEmail OR (LOWER(email) = :afterEmail AND id > :afterId)) " +
+                        "ORDER BY LOWER(email), id LIMIT :limit")
+                .bind("contains", contains)
+                .bind("prefix", prefix)
+                .bind("afterEmail", afterEmail)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveUserStore::toInfo)
+                .all();
+    }
+
+    private static User toUser(Readable row) {
+        User user = new User(row.get("id", UUID.class), row.get("email", String.class),
+                row.get("password", String.class));
+        user.setProfileVersion(row.get("profile_version", Long.class));
+        user.setTokenVersion(row.get("token_version", Long.class));
+        return user;
+    }
+
+    private static UserInfoResponse toInfo(Readable row) {
+        return new UserInfoResponse(row.get("id", UUID.class), row.get("email", String.class));
+    }
+}
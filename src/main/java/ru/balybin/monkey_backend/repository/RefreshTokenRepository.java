@@ -1,15 +1,55 @@
 package ru.balybin.monkey_backend.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.balybin.monkey_backend.model.RefreshToken;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
     Optional<RefreshToken> findByToken(String token);
-    void deleteByToken(String token);
-    void deleteAllByUserId(UUID userId);
+
+    //SELECT ... FOR UPDATE: параллельный refresh с тем же токеном ждёт,пока первый не закончит ротацию
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RefreshToken r WHERE r.token = :token")
+    Optional<RefreshToken> findByTokenForUpdate(@Param("token") String token);
+
+    //ротация семейства одним UPDATE по первичному ключу: совпадение поколения - и проверка токена,и защита от гонки
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.generation = r.generation + 1, r.expiresAt = :expiresAt " +
+            "WHERE r.id = :id AND r.generation = :generation")
+    int advanceGeneration(@Param("id") UUID id, @Param("generation") long generation,
+                          @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.id = :id")
+    int deleteFamily(@Param("id") UUID id);
+
+    //один DELETE по индексу вместо выборки сущностей и удаления по одной
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.token = :token")
+    int deleteByToken(@Param("token") String token);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.userId = :userId")
+    int deleteAllByUserId(@Param("userId") UUID userId);
+
+    //пачка для фоновой чистки,идёт по индексу на expiresAt от самых старых
+    @Query("SELECT r.id FROM RefreshToken r WHERE r.expiresAt < :now ORDER BY r.expiresAt")
+    List<UUID> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
 }
 
 
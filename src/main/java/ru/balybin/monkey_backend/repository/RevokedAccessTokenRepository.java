@@ -0,0 +1,23 @@
+package ru.balybin.monkey_backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.balybin.monkey_backend.model.RevokedAccessToken;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAccessToken, UUID> {
+
+    //опрос узлов: только свежие отзывы,по индексу на revoked_at
+    @Query("SELECT r FROM RevokedAccessToken r WHERE r.revokedAt > :since")
+    List<RevokedAccessToken> findRevokedAfter(@Param("since") Instant since);
+
+    //отзывов мало,поэтому один DELETE по индексу на expires_at,без пачек
+    @Modifying
+    @Query("DELETE FROM RevokedAccessToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
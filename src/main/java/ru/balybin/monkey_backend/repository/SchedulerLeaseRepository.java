@@ -0,0 +1,23 @@
+package ru.balybin.monkey_backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.balybin.monkey_backend.model.SchedulerLease;
+
+import java.time.Instant;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    //один UPDATE с условием: аренду получает только один узел,даже если пришли одновременно
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.leaseUntil = :until " +
+            "WHERE l.name = :name AND (l.leaseUntil < :now OR l.owner = :owner)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("now") Instant now, @Param("until") Instant until);
+
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.leaseUntil = :now WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now);
+}
@@ -1,10 +1,16 @@
 package ru.balybin.monkey_backend.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.model.TokenRevocation;
 import ru.balybin.monkey_backend.model.User;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,8 +20,56 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE u.email LIKE %:query% OR u.email LIKE %:query%")
-    List<User> searchUsers(@Param("query") String name);
+    /*
+    Запасной путь поиска,когда индекс в памяти выключен или ещё строится. Выдача в двух группах
+    (сначала префикс,потом остальные вхождения),каждая листается по ключу (email,id); шаблоны уже экранированы
+    */
+    @Query("SELECT new ru.balybin.monkey_backend.DTO.response.UserInfoResponse(u.id, u.email) FROM User u " +
+            "WHERE LOWER(u.email) LIKE :prefix ESCAPE '\\' " +
+            "AND (LOWER(u.email) > :afterEmail OR (LOWER(u.email) = :afterEmail AND u.id > :afterId)) " +
+            "ORDER BY LOWER(u.email), u.id")
+    List<UserInfoResponse> searchByPrefix(@Param("prefix") String prefix, @Param("afterEmail") String afterEmail,
+                                          @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query("SELECT new ru.balybin.monkey_backend.DTO.response.UserInfoResponse(u.id, u.email) FROM User u " +
+            "WHERE LOWER(u.email) LIKE :contains ESCAPE '\\' AND LOWER(u.email) NOT LIKE :prefix ESCAPE '\\' " +
+            "AND (LOWER(u.email) > :afterEmail OR (LOWER(u.email) = :afterEmail AND u.id > :afterId)) " +
+            "ORDER BY LOWER(u.email), u.id")
+    List<UserInfoResponse> searchBySubstring(@Param("contains") String contains, @Param("prefix") String prefix,
+                                             @Param("afterEmail") String afterEmail, @Param("afterId") UUID afterId,
+                                             Pageable pageable);
+
+    //постраничная загрузка поискового индекса по возрастанию id
+    @Query("SELECT new ru.balybin.monkey_backend.DTO.response.UserInfoResponse(u.id, u.email) FROM User u ORDER BY u.id")
+    List<UserInfoResponse> findSearchEntries(Pageable pageable);
+
+    @Query("SELECT new ru.balybin.monkey_backend.DTO.response.UserInfoResponse(u.id, u.email) FROM User u " +
+            "WHERE u.id > :after ORDER BY u.id")
+    List<UserInfoResponse> findSearchEntriesAfter(@Param("after") UUID after, Pageable pageable);
 
     Optional<User> findById(UUID id);
+
+    List<User> findByIdIn(Collection<UUID> ids);
+
+    @Query("SELECT u.profileVersion FROM User u WHERE u.id = :id")
+    Long findProfileVersionById(@Param("id") UUID id);
+
+    /* смена профиля пишет только email и версию профиля: версию токенов и пароль мог поменять другой узел.
+    Контекст сбрасывается,чтобы следующее чтение в той же транзакции не вернуло прежний email */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.email = :email, u.profileVersion = :profileVersion WHERE u.id = :id")
+    int updateEmail(@Param("id") UUID id, @Param("email") String email, @Param("profileVersion") long profileVersion);
+
+    //logout-all: версия токенов растёт одним UPDATE,без чтения сущности
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1, u.tokensRevokedAt = :now WHERE u.id = :id")
+    int revokeTokens(@Param("id") UUID id, @Param("now") Instant now);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Long findTokenVersionById(@Param("id") UUID id);
+
+    //отзывы после since,идёт по индексу на tokensRevokedAt
+    @Query("SELECT new ru.balybin.monkey_backend.model.TokenRevocation(u.id, u.tokenVersion, u.tokensRevokedAt) " +
+            "FROM User u WHERE u.tokensRevokedAt > :since")
+    List<TokenRevocation> findTokenRevocationsAfter(@Param("since") Instant since);
 }
@@ -0,0 +1,71 @@
+package ru.balybin.monkey_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Текущие версии профилей (userId -> profileVersion). По ним {@code /api/users/profile} понимает,
+ * что claims токена ещё актуальны и в базу за профилем идти не нужно.
+ * Промах стоит одного лёгкого запроса за версией; TTL ограничивает время,за которое до узла
+ * доходит изменение профиля,сделанное на другом узле.
+ */
+@Component
+public class ProfileVersionCache {
+
+    private final UserRepository userRepository;
+    private final boolean claimsBacked;
+    private final Cache<UUID, Long> versions;
+
+    public ProfileVersionCache(UserRepository userRepository,
+                               @Value("${auth.profile.claims-backed:true}") boolean claimsBacked,
+                               @Value("${auth.profile.version-cache.max-size:100000}") long maxSize,
+                               @Value("${auth.profile.version-cache.ttl-seconds:600}") long ttlSeconds,
+                               MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.claimsBacked = claimsBacked;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "user.profile.version");
+    }
+
+    public boolean isClaimsBacked() {
+        return claimsBacked;
+    }
+
+    /** Текущая версия профиля или {@code null},если пользователя нет. */
+    public Long current(UUID userId) {
+        Long cached = versions.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        /* Запрос в базу идёт вне блокировки кэша: get(key, loader) держит монитор ConcurrentHashMap
+        на время загрузки и прикалывает виртуальный поток к carrier'у. Версии только растут,
+        поэтому при гонке с update() остаётся большая */
+        Long loaded = userRepository.findProfileVersionById(userId);
+        return loaded != null ? versions.asMap().merge(userId, loaded, Math::max) : null;
+    }
+
+    /** Версия из кэша без похода в базу: реактивный стек загружает её сам через R2DBC. */
+    public Long cached(UUID userId) {
+        return versions.getIfPresent(userId);
+    }
+
+    public void update(UUID userId, long profileVersion) {
+        versions.asMap().merge(userId, profileVersion, Math::max);
+    }
+
+    public void invalidate(UUID userId) {
+        versions.invalidate(userId);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.balybin.monkey_backend.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import ru.balybin.monkey_backend.config.RefreshTokenCodec;
+import ru.balybin.monkey_backend.exception.UserException;
+import ru.balybin.monkey_backend.model.RefreshToken;
+import ru.balybin.monkey_backend.model.TimeOrderedUuid;
+import ru.balybin.monkey_backend.repository.ReactiveRefreshTokenStore;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Реактивный вариант {@link RefreshTokenService}: тот же формат токенов и та же семантика ротации.
+ * Выпуск токена и срок берутся у {@link RefreshTokenService}, он в этом профиле тоже поднят.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveRefreshTokenService {
+
+    private final ReactiveRefreshTokenStore refreshTokenStore;
+    private final TransactionalOperator transactionalOperator;
+    private final RefreshTokenCodec codec;
+    private final RejectedRefreshTokens rejected;
+    private final RefreshTokenService tokens;
+
+    public ReactiveRefreshTokenService(ReactiveRefreshTokenStore refreshTokenStore,
+                                       TransactionalOperator transactionalOperator,
+                                       RefreshTokenCodec codec, RejectedRefreshTokens rejected,
+                                       RefreshTokenService tokens) {
+        this.refreshTokenStore = refreshTokenStore;
+        this.transactionalOperator = transactionalOperator;
+        this.codec = codec;
+        this.rejected = rejected;
+        this.tokens = tokens;
+    }
+
+    public Mono<RefreshTokenService.Issued> create(UUID userId) {
+        Instant expiresAt = tokens.expiry(Instant.now());
+        RefreshToken family = new RefreshToken(null, userId, expiresAt);
+        family.setId(TimeOrderedUuid.next());
+        return refreshTokenStore.insertFamily(family).as(transactionalOperator::transactional)
+                .map(saved -> tokens.issue(userId, saved.getId(), saved.getGeneration(), expiresAt));
+    }
+
+    /** Один UPDATE поколения семейства без SELECT, как в {@link RefreshTokenService#rotate}. */
+    public Mono<RefreshTokenService.Issued> rotate(String token) {
+        RefreshTokenCodec.Claims claims = codec.decode(token);
+        if (claims == null) {
+            return rotateLegacy(token);
+        }
+        Instant now = Instant.now();
+        if (claims.expiresAt().isBefore(now)) {
+            return Mono.error(new UserException("Refresh token expired"));
+        }
+        if (rejected.contains(claims)) {
+            return Mono.error(new UserException("Invalid refresh token"));
+        }
+        Instant expiresAt = tokens.expiry(now);
+        return refreshTokenStore.advanceGeneration(claims.familyId(), claims.generation(), expiresAt)
+                .as(transactionalOperator::transactional)
+                .flatMap(updated -> {
+                    if (updated == 0) {
+                        rejected.add(claims);
+                        return Mono.error(new UserException("Invalid refresh token"));
+                    }
+                    return Mono.just(tokens.issue(claims.userId(), claims.familyId(), claims.generation() + 1,
+                            expiresAt));
+                });
+    }
+
+    /**
+     * Старый непрозрачный токен: SELECT ... FOR UPDATE и UPDATE той же строки в одной транзакции.
+     * Удаление просроченного токена должно закоммититься,поэтому ошибка выбрасывается уже после транзакции.
+     */
+    private Mono<RefreshTokenService.Issued> rotateLegacy(String token) {
+        return refreshTokenStore.findByTokenForUpdate(token)
+                .filter(t -> t.getToken().equals(token))
+                .switchIfEmpty(Mono.error(() -> new UserException("Invalid refresh token")))
+                .flatMap(stored -> {
+                    Instant now = Instant.now();
+                    if (stored.getExpiresAt().isBefore(now)) {
+                        return refreshTokenStore.deleteById(stored.getId()).thenReturn(new Rotation(stored, true));
+                    }
+                    stored.setGeneration(stored.getGeneration() + 1);
+                    stored.setExpiresAt(tokens.expiry(now));
+                    return refreshTokenStore.convertToFamily(stored.getId(), stored.getGeneration(),
+                                    stored.getExpiresAt())
+                            .thenReturn(new Rotation(stored, false));
+                })
+                .as(transactionalOperator::transactional)
+                .flatMap(rotation -> {
+                    if (rotation.expired()) {
+                        return Mono.error(new UserException("Refresh token expired"));
+                    }
+                    RefreshToken family = rotation.token();
+                    return Mono.just(tokens.issue(family.getUserId(), family.getId(), family.getGeneration(),
+                            family.getExpiresAt()));
+                });
+    }
+
+    public Mono<Void> delete(String token) {
+        RefreshTokenCodec.Claims claims = codec.decode(token);
+        Mono<Void> delete = claims != null
+                ? refreshTokenStore.deleteById(claims.familyId())
+                : refreshTokenStore.deleteByToken(token);
+        return delete.as(transactionalOperator::transactional);
+    }
+
+    private record Rotation(RefreshToken token, boolean expired) {}
+}
@@ -0,0 +1,228 @@
+package ru.balybin.monkey_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
+import ru.balybin.monkey_backend.DTO.response.UserBatchResponse;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.DTO.response.UserProfileResponse;
+import ru.balybin.monkey_backend.DTO.response.UserSearchResponse;
+import ru.balybin.monkey_backend.config.BoundedPasswordEncoder;
+import ru.balybin.monkey_backend.config.TokenVersions;
+import ru.balybin.monkey_backend.config.UserMapper;
+import ru.balybin.monkey_backend.config.UserPrincipal;
+import ru.balybin.monkey_backend.exception.UserException;
+import ru.balybin.monkey_backend.model.TimeOrderedUuid;
+import ru.balybin.monkey_backend.model.TokenRevocation;
+import ru.balybin.monkey_backend.model.User;
+import ru.balybin.monkey_backend.repository.ReactiveRefreshTokenStore;
+import ru.balybin.monkey_backend.repository.ReactiveUserStore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Реактивный вариант {@link UserServiceImplementation}: тот же контракт и те же ошибки,
+ * но без блокирующих вызовов на потоках event loop'а. BCrypt уходит на пул {@link BoundedPasswordEncoder},
+ * поиск по-прежнему идёт через {@link UserSearchIndex} в памяти.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final ReactiveUserStore userStore;
+    private final UserMapper userMapper;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final ProfileVersionCache profileVersionCache;
+    private final UserSearchIndex userSearchIndex;
+    private final TransactionalOperator transactionalOperator;
+    private final ReactiveRefreshTokenStore refreshTokenStore;
+    private final TokenVersions tokenVersions;
+
+    private final int maxBatchSize;
+    private final int batchChunkSize;
+    private final int maxSearchResults;
+
+    public ReactiveUserService(ReactiveUserStore userStore, UserMapper userMapper,
+                               BoundedPasswordEncoder passwordEncoder, ProfileVersionCache profileVersionCache,
+                               UserSearchIndex userSearchIndex, TransactionalOperator transactionalOperator,
+                               ReactiveRefreshTokenStore refreshTokenStore, TokenVersions tokenVersions,
+                               @Value("${auth.users.batch.max-size:1000}") int maxBatchSize,
+                               @Value("${auth.users.batch.chunk-size:500}") int batchChunkSize,
+                               @Value("${auth.users.search.max-results:50}") int maxSearchResults) {
+        this.userStore = userStore;
+        this.userMapper = userMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.profileVersionCache = profileVersionCache;
+        this.userSearchIndex = userSearchIndex;
+        this.transactionalOperator = transactionalOperator;
+        this.refreshTokenStore = refreshTokenStore;
+        this.tokenVersions = tokenVersions;
+        this.maxBatchSize = maxBatchSize;
+        this.batchChunkSize = batchChunkSize;
+        this.maxSearchResults = maxSearchResults;
+    }
+
+    public Mono<User> registerUser(User user) {
+        return userStore.existsByEmail(user.getEmail())
+                .flatMap(exists -> exists
+                        ? Mono.<String>error(new UserException("User already exists"))
+                        : Mono.fromFuture(() -> passwordEncoder.encodeAsync(user.getPassword())))
+                .flatMap(hash -> {
+                    user.setId(TimeOrderedUuid.next());
+                    user.setPassword(hash);
+                    return userStore.insert(user).as(transactionalOperator::transactional);
+                })
+                //параллельная регистрация с тем же email упирается в unique-ограничение
+                .onErrorMap(DataIntegrityViolationException.class, e -> new UserException("User already exists"))
+                .doOnNext(saved -> userSearchIndex.put(saved.getId(), saved.getEmail()));
+    }
+
+    public Mono<User> findUserByEmail(String email) {
+        return userStore.findByEmail(email)
+                .switchIfEmpty(Mono.error(() -> new UserException("User not found with email: " + email)));
+    }
+
+    public Mono<User> findUserById(UUID id) {
+        return userStore.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserException("User not found with id" + id)));
+    }
+
+    public Mono<UserBatchResponse> findUsersByIds(List<UUID> ids) {
+        LinkedHashSet<UUID> uniqueIds = new LinkedHashSet<>();
+        for (UUID id : ids) {
+            if (id != null) {
+                uniqueIds.add(id);
+            }
+        }
+        if (uniqueIds.size() > maxBatchSize) {
+            return Mono.error(new UserException("Too many user ids in one batch, max is " + maxBatchSize));
+        }
+        return Flux.fromIterable(uniqueIds)
+                .buffer(batchChunkSize)
+                .concatMap(userStore::findByIdIn)
+                .collectMap(UserInfoResponse::getId)
+                .map(found -> toBatch(uniqueIds, found));
+    }
+
+    private static UserBatchResponse toBatch(LinkedHashSet<UUID> uniqueIds, Map<UUID, UserInfoResponse> found) {
+        List<UserInfoResponse> users = new ArrayList<>(found.size());
+        List<UUID> missingIds = new ArrayList<>();
+        for (UUID id : uniqueIds) {
+            UserInfoResponse user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new UserBatchResponse(users, missingIds);
+    }
+
+    public Mono<UserProfileResponse> findUserProfile(UserPrincipal principal) {
+        String email = principal != null ? principal.getEmail() : null;
+        if (email == null) {
+            return Mono.error(new BadCredentialsException("Received invalid token"));
+        }
+        UUID userId = principal.getUserId();
+        if (userId == null) {
+            return findUserByEmail(email).map(userMapper::toProfileResponse);
+        }
+        if (!profileVersionCache.isClaimsBacked()) {
+            return findUserById(userId).map(userMapper::toProfileResponse);
+        }
+        Long cached = profileVersionCache.cached(userId);
+        Mono<Long> currentVersion = cached != null
+                ? Mono.just(cached)
+                : userStore.findProfileVersionById(userId)
+                        .doOnNext(version -> profileVersionCache.update(userId, version));
+        //профиль не менялся с момента выдачи токена - отвечаем из claims
+        return currentVersion
+                .filter(version -> version <= principal.getProfileVersion())
+                .map(version -> new UserProfileResponse(userId, email))
+                .switchIfEmpty(Mono.defer(() -> findUserById(userId).map(userMapper::toProfileResponse)));
+    }
+
+    public Mono<UserProfileResponse> updateUser(UUID userId, UpdateProfileRequest req) {
+        return findUserById(userId).flatMap(user -> {
+            String oldEmail = user.getEmail();
+            userMapper.updateUserFromRequest(user, req);
+            if (!oldEmail.equals(user.getEmail())) {
+                user.setProfileVersion(user.getProfileVersion() + 1);
+            }
+            return userStore.updateEmail(userId, user.getEmail(), user.getProfileVersion())
+                    .as(transactionalOperator::transactional)
+                    .then(Mono.fromSupplier(() -> {
+                        profileVersionCache.update(userId, user.getProfileVersion());
+                        userSearchIndex.put(userId, user.getEmail());
+                        return userMapper.toProfileResponse(user);
+                    }));
+        });
+    }
+
+    /** Как {@link UserServiceImplementation#logoutEverywhere}: версия и семейства в одной транзакции. */
+    public Mono<Long> logoutEverywhere(UUID userId) {
+        Instant now = Instant.now();
+        return userStore.revokeTokens(userId, now)
+                .flatMap(updated -> updated == 0
+                        ? Mono.<Long>error(new UserException("User not found with id" + userId))
+                        : refreshTokenStore.deleteAllByUserId(userId).then(userStore.findTokenVersionById(userId)))
+                .as(transactionalOperator::transactional)
+                .doOnNext(version -> tokenVersions.revoked(new TokenRevocation(userId, version, now)));
+    }
+
+    public Mono<UserSearchResponse> searchUser(String query, String cursor, int limit) {
+        if (query == null || query.isBlank()) {
+            return Mono.just(new UserSearchResponse(List.of(), null));
+        }
+        String normalized = UserSearchIndex.normalize(query);
+        SearchCursor after;
+        try {
+            after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        } catch (UserException e) {
+            return Mono.error(e);
+        }
+        int pageSize = Math.max(1, Math.min(limit, maxSearchResults));
+
+        //индекс в памяти отвечает без ввода-вывода,база - только пока он строится
+        Mono<List<UserInfoResponse>> rows = userSearchIndex.isReady()
+                ? Mono.fromSupplier(() -> userSearchIndex.search(normalized, after, pageSize + 1))
+                : searchDatabase(normalized, after, pageSize + 1);
+        return rows.map(found -> UserServiceImplementation.toPage(found, pageSize, normalized));
+    }
+
+    private Mono<List<UserInfoResponse>> searchDatabase(String query, SearchCursor after, int limit) {
+        String escaped = UserServiceImplementation.escapeLike(query);
+        String prefix = escaped + "%";
+        Mono<List<UserInfoResponse>> prefixRows = after == null || after.prefix()
+                ? userStore.searchByPrefix(prefix, after != null ? after.email() : "",
+                        after != null ? after.id() : FIRST_ID, limit).collectList()
+                : Mono.just(List.of());
+        return prefixRows.flatMap(found -> {
+            if (found.size() >= limit) {
+                return Mono.just(found);
+            }
+            boolean resume = after != null && !after.prefix();
+            return userStore.searchBySubstring("%" + escaped + "%", prefix,
+                            resume ? after.email() : "", resume ? after.id() : FIRST_ID, limit - found.size())
+                    .collectList()
+                    .map(rest -> {
+                        List<UserInfoResponse> rows = new ArrayList<>(found);
+                        rows.addAll(rest);
+                        return rows;
+                    });
+        });
+    }
+}
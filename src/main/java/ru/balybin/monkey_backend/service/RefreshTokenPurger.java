@@ -0,0 +1,155 @@
+package ru.balybin.monkey_backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.balybin.monkey_backend.repository.RefreshTokenRepository;
+import ru.balybin.monkey_backend.repository.RevokedAccessTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая чистка просроченных refresh-токенов: токены пользователей, которые не вернулись, иначе лежат
+ * в {@code refresh_tokens} вечно. Удаляет пачками по {@code batch-size} строк (каждая пачка - своя короткая
+ * транзакция, выбор по индексу на {@code expiresAt}) с паузой между пачками, чтобы не держать блокировки
+ * и не забивать WAL. Одновременно чистит только один узел - тот, кто держит аренду в {@link SchedulerLeases}.
+ * Тем же проходом удаляются истёкшие записи {@code revoked_access_tokens}: отзыв нужен только до срока токена.
+ */
+@Component
+public class RefreshTokenPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenPurger.class);
+
+    static final String LEASE = "refresh-token-purge";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final SchedulerLeases leases;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long intervalSeconds;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final Duration leaseDuration;
+    private final Counter purged;
+    private final Counter skipped;
+    private final Timer runTimer;
+    private final ScheduledExecutorService scheduler;
+
+    public RefreshTokenPurger(RefreshTokenRepository refreshTokenRepository,
+                              RevokedAccessTokenRepository revokedAccessTokenRepository,
+                              SchedulerLeases leases,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${auth.refresh.purge.enabled:true}") boolean enabled,
+                              @Value("${auth.refresh.purge.interval-seconds:3600}") long intervalSeconds,
+                              @Value("${auth.refresh.purge.batch-size:5000}") int batchSize,
+                              @Value("${auth.refresh.purge.pause-millis:200}") long pauseMillis,
+                              @Value("${auth.refresh.purge.lease-seconds:300}") long leaseSeconds,
+                              MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revokedAccessTokenRepository = revokedAccessTokenRepository;
+        this.leases = leases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.intervalSeconds = intervalSeconds;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.purged = Counter.builder("refresh.tokens.purged").register(meterRegistry);
+        this.skipped = Counter.builder("refresh.tokens.purge.skipped")
+                .description("Runs skipped because another node holds the lease")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("refresh.tokens.purge.duration").register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "refresh-token-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || intervalSeconds <= 0) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::purgeQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Один проход до конца просроченных строк. Возвращает число удалённых строк,
+     * {@code -1} - аренду держит другой узел.
+     */
+    public long purge() {
+        if (!leases.tryAcquire(LEASE, leaseDuration)) {
+            skipped.increment();
+            return -1;
+        }
+        Timer.Sample sample = Timer.start();
+        long total = 0;
+        try {
+            Instant now = Instant.now();
+            while (true) {
+                int deleted = deleteBatch(now);
+                total += deleted;
+                purged.increment(deleted);
+                //неполная пачка - просроченных больше нет; аренду продлеваем перед каждой следующей
+                if (deleted < batchSize || !leases.tryAcquire(LEASE, leaseDuration)) {
+                    break;
+                }
+                Thread.sleep(pauseMillis);
+            }
+            Integer revoked = transactionTemplate.execute(
+                    status -> revokedAccessTokenRepository.deleteExpired(now));
+            if (revoked != null && revoked > 0) {
+                log.info("Purged {} expired access token revocations", revoked);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sample.stop(runTimer);
+            leases.release(LEASE);
+        }
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+        return total;
+    }
+
+    private int deleteBatch(Instant now) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<UUID> ids = refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, batchSize));
+            return ids.isEmpty() ? 0 : refreshTokenRepository.deleteByIdIn(ids);
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            //попробуем при следующем запуске
+            log.warn("Refresh token purge failed", e);
+        }
+    }
+}
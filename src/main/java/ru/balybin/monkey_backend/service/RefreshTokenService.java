@@ -3,52 +3,117 @@ package ru.balybin.monkey_backend.service;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.balybin.monkey_backend.config.RefreshTokenCodec;
 import ru.balybin.monkey_backend.exception.UserException;
 import ru.balybin.monkey_backend.model.RefreshToken;
 import ru.balybin.monkey_backend.repository.RefreshTokenRepository;
 
 import java.time.Instant;
 import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
+/**
+ * Подписанные refresh-токены (формат - {@link RefreshTokenCodec}). Подделанный и просроченный токен отсекаются
+ * в памяти, в базе на семейство одна строка с номером текущего поколения: ротация - один UPDATE этой строки,
+ * выход - её удаление. Старые непрозрачные токены ещё принимаются и при ротации превращаются в семейство.
+ */
 @Service
 public class RefreshTokenService {
 
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenCodec codec;
+    private final RejectedRefreshTokens rejected;
     private final Duration refreshTtl;
 
-    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, RefreshTokenCodec codec,
+                               RejectedRefreshTokens rejected,
                                @Value("${auth.refresh.ttl-days:7}") long ttlDays) {
         this.refreshTokenRepository = refreshTokenRepository;
+        this.codec = codec;
+        this.rejected = rejected;
         this.refreshTtl = Duration.ofDays(ttlDays);
     }
 
-    public RefreshToken create(UUID userId) {
-        RefreshToken token = new RefreshToken(UUID.randomUUID().toString(), userId,
-                Instant.now().plus(refreshTtl));
-        return refreshTokenRepository.save(token);
+    /** Новое семейство: одна строка на логин, дальше ротации только меняют её поколение. */
+    @Transactional
+    public Issued create(UUID userId) {
+        Instant expiresAt = expiry(Instant.now());
+        RefreshToken family = refreshTokenRepository.save(new RefreshToken(null, userId, expiresAt));
+        return issue(userId, family.getId(), family.getGeneration(), expiresAt);
+    }
+
+    /**
+     * Ротация за один UPDATE без предварительного SELECT: строка меняется, только если поколение в токене
+     * текущее. Из параллельных запросов с одним токеном это удаётся первому, остальные получают отказ.
+     */
+    @Transactional(noRollbackFor = UserException.class)
+    public Issued rotate(String token) {
+        RefreshTokenCodec.Claims claims = codec.decode(token);
+        if (claims == null) {
+            return rotateLegacy(token);
+        }
+        Instant now = Instant.now();
+        if (claims.expiresAt().isBefore(now)) {
+            throw new UserException("Refresh token expired");
+        }
+        if (rejected.contains(claims)) {
+            throw new UserException("Invalid refresh token");
+        }
+        Instant expiresAt = expiry(now);
+        if (refreshTokenRepository.advanceGeneration(claims.familyId(), claims.generation(), expiresAt) == 0) {
+            //токен уже ротирован или семейство удалено - повтор отвечаем из памяти
+            rejected.add(claims);
+            throw new UserException("Invalid refresh token");
+        }
+        return issue(claims.userId(), claims.familyId(), claims.generation() + 1, expiresAt);
     }
 
-    public RefreshToken validate(String token) {
-        RefreshToken stored = refreshTokenRepository.findByToken(token)
+    /**
+     * Непрозрачный токен, выданный до подписанного формата: SELECT ... FOR UPDATE по значению, строка тут же
+     * становится семейством следующего поколения, значение из неё стирается.
+     */
+    private Issued rotateLegacy(String token) {
+        RefreshToken stored = refreshTokenRepository.findByTokenForUpdate(token)
+                .filter(t -> t.getToken().equals(token))
                 .orElseThrow(() -> new UserException("Invalid refresh token"));
-        if (stored.getExpiresAt().isBefore(Instant.now())) {
-            refreshTokenRepository.deleteByToken(token);
+        Instant now = Instant.now();
+        if (stored.getExpiresAt().isBefore(now)) {
+            refreshTokenRepository.delete(stored);
             throw new UserException("Refresh token expired");
         }
-        return stored;
+        stored.setToken(null);
+        stored.setGeneration(stored.getGeneration() + 1);
+        stored.setExpiresAt(expiry(now));
+        return issue(stored.getUserId(), stored.getId(), stored.getGeneration(), stored.getExpiresAt());
     }
 
+    /** Выход отзывает всё семейство: токен любого его поколения больше не ротируется. */
     @Transactional
     public void delete(String token) {
-        refreshTokenRepository.deleteByToken(token);
+        RefreshTokenCodec.Claims claims = codec.decode(token);
+        if (claims != null) {
+            refreshTokenRepository.deleteFamily(claims.familyId());
+        } else {
+            refreshTokenRepository.deleteByToken(token);
+        }
     }
 
     @Transactional
     public void deleteAllForUser(UUID userId) {
         refreshTokenRepository.deleteAllByUserId(userId);
     }
-}
 
+    Issued issue(UUID userId, UUID familyId, long generation, Instant expiresAt) {
+        String token = codec.encode(new RefreshTokenCodec.Claims(userId, familyId, generation, expiresAt));
+        return new Issued(token, userId, expiresAt);
+    }
 
+    //в токене срок хранится в секундах,в базе - такой же,чтобы они не расходились
+    Instant expiry(Instant now) {
+        return now.plus(refreshTtl).truncatedTo(ChronoUnit.SECONDS);
+    }
 
+    /** Выданный клиенту refresh-токен. */
+    public record Issued(String token, UUID userId, Instant expiresAt) {}
+}
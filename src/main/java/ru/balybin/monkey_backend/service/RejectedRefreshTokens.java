@@ -0,0 +1,50 @@
+package ru.balybin.monkey_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.balybin.monkey_backend.config.RefreshTokenCodec;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Пары (семейство, поколение), которые база уже отвергла. Поколения только растут, а удалённое семейство
+ * не возвращается, поэтому отказ не устаревает и кэш не нужно сбрасывать ни на этом узле, ни на других.
+ * Повтор такого токена (двойной клик, повтор клиента, перебор украденным токеном) отвечается без запроса в базу.
+ * Запись живёт не дольше refresh-токена: после его срока отказ даёт уже проверка срока.
+ */
+@Component
+public class RejectedRefreshTokens {
+
+    private final Cache<Generation, Boolean> rejected;
+
+    public RejectedRefreshTokens(@Value("${auth.refresh.rejected-cache.max-size:100000}") long maxSize,
+                                 @Value("${auth.refresh.ttl-days:7}") long ttlDays,
+                                 MeterRegistry meterRegistry) {
+        this.rejected = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofDays(ttlDays))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, rejected, "refresh.tokens.rejected");
+    }
+
+    public boolean contains(RefreshTokenCodec.Claims claims) {
+        return rejected.getIfPresent(Generation.of(claims)) != null;
+    }
+
+    public void add(RefreshTokenCodec.Claims claims) {
+        rejected.put(Generation.of(claims), Boolean.TRUE);
+    }
+
+    private record Generation(UUID familyId, long generation) {
+
+        static Generation of(RefreshTokenCodec.Claims claims) {
+            return new Generation(claims.familyId(), claims.generation());
+        }
+    }
+}
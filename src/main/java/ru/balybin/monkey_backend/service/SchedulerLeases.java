@@ -0,0 +1,53 @@
+package ru.balybin.monkey_backend.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.balybin.monkey_backend.model.SchedulerLease;
+import ru.balybin.monkey_backend.repository.SchedulerLeaseRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/** Аренды фоновых задач в базе (см. {@link SchedulerLease}), каждая операция - отдельная короткая транзакция. */
+@Component
+public class SchedulerLeases {
+
+    private final SchedulerLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    //один владелец на процесс
+    private final String owner = UUID.randomUUID().toString();
+
+    public SchedulerLeases(SchedulerLeaseRepository leaseRepository, PlatformTransactionManager transactionManager) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Берёт или продлевает аренду на {@code duration}; {@code false} - её держит другой узел. */
+    public boolean tryAcquire(String name, Duration duration) {
+        Instant now = Instant.now();
+        Integer updated = transactionTemplate.execute(
+                status -> leaseRepository.tryAcquire(name, owner, now, now.plus(duration)));
+        if (updated != null && updated > 0) {
+            return true;
+        }
+        try {
+            //строки ещё нет: первый INSERT выигрывает,остальные упираются в первичный ключ
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (leaseRepository.existsById(name)) {
+                    return false;
+                }
+                leaseRepository.saveAndFlush(new SchedulerLease(name, owner, now.plus(duration)));
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    public void release(String name) {
+        transactionTemplate.executeWithoutResult(status -> leaseRepository.release(name, owner, Instant.now()));
+    }
+}
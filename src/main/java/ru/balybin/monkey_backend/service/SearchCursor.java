@@ -0,0 +1,51 @@
+package ru.balybin.monkey_backend.service;
+
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.exception.UserException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция в выдаче поиска: группа (совпадение по префиксу или нет), email в нижнем регистре и id
+ * последнего показанного пользователя. Выдача упорядочена по (группа, email, id),
+ * следующая страница начинается строго после курсора.
+ */
+public record SearchCursor(boolean prefix, String email, UUID id) {
+
+    /** Курсор,указывающий на {@code last}; {@code query} уже нормализован. */
+    public static SearchCursor after(UserInfoResponse last, String query) {
+        String email = UserSearchIndex.normalize(last.getEmail());
+        return new SearchCursor(email.startsWith(query), email, last.getId());
+    }
+
+    public static SearchCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('\n');
+            char group = raw.charAt(0);
+            if (separator < 1 || (group != 'p' && group != 's')) {
+                throw new IllegalArgumentException(value);
+            }
+            return new SearchCursor(group == 'p', raw.substring(1, separator),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new UserException("Invalid search cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = (prefix ? 'p' : 's') + email + '\n' + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //ключ сортировки внутри группы,совпадает с ключом индекса
+    String sortKey() {
+        return sortKey(email, id);
+    }
+
+    static String sortKey(String normalizedEmail, UUID id) {
+        return normalizedEmail + '\u0000' + id;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.balybin.monkey_backend.service;
+
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import ru.balybin.monkey_backend.DTO.response.TokenIntrospection;
+import ru.balybin.monkey_backend.config.RevokedAccessTokens;
+import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.config.TokenVersions;
+import ru.balybin.monkey_backend.config.UserPrincipal;
+import ru.balybin.monkey_backend.config.VerifiedTokenCache;
+import ru.balybin.monkey_backend.exception.UserException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Пакетная проверка access-токенов для сервисов, которые не проверяют JWT сами. Идёт тем же путём,
+ * что и {@link ru.balybin.monkey_backend.config.JwtTokenValidator}: {@link VerifiedTokenCache} и
+ * {@link TokenProvider#verify}, без обращения к базе; токены, погашенные logout-all, гасятся по {@link TokenVersions},
+ * отозванные по одному - по {@link RevokedAccessTokens} (в базу только при срабатывании его фильтра).
+ * Проверку отзыва (пользователь ещё существует) контроллеры делают одним пакетным запросом своего стека
+ * и отдают сюда только отсутствующие id.
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private final TokenProvider tokenProvider;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenVersions tokenVersions;
+    private final RevokedAccessTokens revokedAccessTokens;
+
+    private final int maxTokens;
+
+    public TokenIntrospectionService(TokenProvider tokenProvider, VerifiedTokenCache tokenCache,
+                                     TokenVersions tokenVersions, RevokedAccessTokens revokedAccessTokens,
+                                     @Value("${auth.introspect.max-tokens:500}") int maxTokens) {
+        this.tokenProvider = tokenProvider;
+        this.tokenCache = tokenCache;
+        this.tokenVersions = tokenVersions;
+        this.revokedAccessTokens = revokedAccessTokens;
+        this.maxTokens = maxTokens;
+    }
+
+    public List<TokenIntrospection> verify(List<String> tokens) {
+        if (tokens.size() > maxTokens) {
+            throw new UserException("Too many tokens in one request, max is " + maxTokens);
+        }
+        List<TokenIntrospection> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            results.add(verify(token));
+        }
+        return results;
+    }
+
+    /** id пользователей активных токенов, для пакетной проверки отзыва. */
+    public List<UUID> userIds(List<TokenIntrospection> results) {
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (TokenIntrospection result : results) {
+            if (result.isActive() && result.getUserId() != null) {
+                ids.add(result.getUserId());
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /** Гасит токены пользователей, которых больше нет. */
+    public List<TokenIntrospection> revoke(List<TokenIntrospection> results, Collection<UUID> missingUserIds) {
+        if (missingUserIds.isEmpty()) {
+            return results;
+        }
+        Set<UUID> missing = new HashSet<>(missingUserIds);
+        List<TokenIntrospection> revoked = new ArrayList<>(results.size());
+        for (TokenIntrospection result : results) {
+            revoked.add(result.isActive() && missing.contains(result.getUserId())
+                    ? TokenIntrospection.inactive()
+                    : result);
+        }
+        return revoked;
+    }
+
+    /** Отзывает до срока один access-токен владельца, например с потерянного устройства. */
+    public void revokeToken(UUID ownerId, String token) {
+        UserPrincipal target;
+        try {
+            target = tokenProvider.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new UserException("Invalid access token");
+        }
+        if (!ownerId.equals(target.getUserId())) {
+            throw new UserException("Token belongs to another user");
+        }
+        if (target.getTokenId() == null) {
+            throw new UserException("Token has no id, use logout-all");
+        }
+        revokedAccessTokens.revoke(target);
+    }
+
+    private TokenIntrospection verify(String token) {
+        if (token == null || token.isBlank()) {
+            return TokenIntrospection.inactive();
+        }
+        try {
+            Authentication authentication = tokenCache.get(token,
+                    jwt -> VerifiedTokenCache.Verified.of(tokenProvider.verify(jwt)));
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+            if (tokenVersions.isRevoked(principal) || revokedAccessTokens.isRevoked(principal)) {
+                return TokenIntrospection.inactive();
+            }
+            return new TokenIntrospection(true, principal.getUserId(), principal.getEmail(),
+                    principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList(),
+                    principal.getExpiresAt() != null ? principal.getExpiresAt().getEpochSecond() : null);
+        } catch (JwtException | IllegalArgumentException e) {
+            //подпись,срок или формат - для ответа не важно,токен просто не активен
+            return TokenIntrospection.inactive();
+        }
+    }
+}
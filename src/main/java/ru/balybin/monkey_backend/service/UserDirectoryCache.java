@@ -0,0 +1,178 @@
+package ru.balybin.monkey_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.balybin.monkey_backend.model.User;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш пользователей перед {@code UserRepository}: id -> пользователь и email -> id.
+ * <p>
+ * Хранятся отсоединённые копии, наружу тоже отдаются копии, поэтому изменения сущности
+ * вызывающим кодом кэш не портят. Внутри открытой транзакции кэш не читается и не пополняется:
+ * там могут быть незакоммиченные данные, которые потом откатятся.
+ * Изменения с других узлов становятся видны не позже чем через TTL.
+ */
+@Component
+public class UserDirectoryCache {
+
+    private final Cache<UUID, User> byId;
+    private final Cache<String, UUID> idByEmail;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserDirectoryCache(@Value("${auth.users.cache.max-size:100000}") long maxSize,
+                              @Value("${auth.users.cache.ttl-seconds:300}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "user.directory.id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByEmail, "user.directory.email");
+    }
+
+    /** Пользователь по id или {@code null}; отсутствующие пользователи не кэшируются. */
+    public User getById(UUID id, Function<UUID, User> loader) {
+        if (inTransaction()) {
+            return loader.apply(id);
+        }
+        User cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return copy(cached);
+        }
+        long generation = invalidations.get();
+        User loaded = loader.apply(id);
+        if (loaded != null) {
+            storeIfCurrent(copy(loaded), generation);
+        }
+        return loaded;
+    }
+
+    public User getByEmail(String email, Function<String, User> loader) {
+        if (inTransaction()) {
+            return loader.apply(email);
+        }
+        UUID id = idByEmail.getIfPresent(email);
+        User cached = id != null ? byId.getIfPresent(id) : null;
+        if (cached != null && email.equals(cached.getEmail())) {
+            return copy(cached);
+        }
+        //промах,запись по id уже вытеснена или email сменился - перечитываем
+        long generation = invalidations.get();
+        User loaded = loader.apply(email);
+        if (loaded != null) {
+            storeIfCurrent(copy(loaded), generation);
+        }
+        return loaded;
+    }
+
+    /**
+     * Пакетное чтение: в загрузчик уходят только те id,которых нет в кэше.
+     * Ненайденные id в результате просто отсутствуют.
+     */
+    public Map<UUID, User> getAllById(Set<UUID> ids, Function<Set<UUID>, Map<UUID, User>> bulkLoader) {
+        if (inTransaction()) {
+            return bulkLoader.apply(ids);
+        }
+        Map<UUID, User> result = new HashMap<>(ids.size() * 2);
+        byId.getAllPresent(ids).forEach((id, user) -> result.put(id, copy(user)));
+        if (result.size() == ids.size()) {
+            return result;
+        }
+        Set<UUID> missing = new HashSet<>(ids);
+        missing.removeAll(result.keySet());
+        long generation = invalidations.get();
+        bulkLoader.apply(missing).forEach((id, user) -> {
+            storeIfCurrent(copy(user), generation);
+            result.put(id, user);
+        });
+        return result;
+    }
+
+    public void put(User user) {
+        User snapshot = copy(user);
+        if (inTransaction()) {
+            afterCommit(() -> store(snapshot));
+        } else {
+            store(snapshot);
+        }
+    }
+
+    /** Сбрасывает пользователя сразу и ещё раз после коммита,чтобы не поймать чтение между ними. */
+    public void invalidate(UUID id, Collection<String> emails) {
+        evict(id, emails);
+        if (inTransaction()) {
+            afterCommit(() -> evict(id, emails));
+        }
+    }
+
+    private void store(User snapshot) {
+        byId.put(snapshot.getId(), snapshot);
+        idByEmail.put(snapshot.getEmail(), snapshot.getId());
+    }
+
+    /*
+    Загрузка идёт вне блокировок кэша: Caffeine.get(key, loader) держит монитор ConcurrentHashMap
+    на время запроса в базу,а монитор прикалывает виртуальный поток к carrier'у. Чтобы значение,
+    прочитанное до invalidate(),не легло в кэш после него,сверяем счётчик сбросов.
+    */
+    private synchronized void storeIfCurrent(User snapshot, long generation) {
+        if (invalidations.get() == generation) {
+            store(snapshot);
+        }
+    }
+
+    private synchronized void evict(UUID id, Collection<String> emails) {
+        invalidations.incrementAndGet();
+        byId.invalidate(id);
+        idByEmail.invalidateAll(emails);
+    }
+
+    private static boolean inTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static User copy(User user) {
+        if (user == null) {
+            return null;
+        }
+        User copy = new User(user.getId(), user.getEmail(), user.getPassword());
+        copy.setProfileVersion(user.getProfileVersion());
+        copy.setTokenVersion(user.getTokenVersion());
+        copy.setTokensRevokedAt(user.getTokensRevokedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,407 @@
+package ru.balybin.monkey_backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Поисковый индекс по email для {@code GET /api/users/search}: триграммный инвертированный индекс
+ * плюс отсортированный словарь для префиксов. Поиск регистронезависимый, сначала идут совпадения
+ * по префиксу, затем остальные вхождения подстроки; внутри группы - по email и id, поэтому выдачу
+ * можно листать курсором ({@link SearchCursor}). Результат всегда ограничен.
+ * <p>
+ * Индекс строится из базы после старта и периодически перестраивается целиком, чтобы подхватить
+ * изменения с других узлов; регистрация и смена email на этом узле попадают в него сразу после коммита.
+ * Пока индекс не построен (или выключен), {@link #isReady()} возвращает {@code false}
+ * и поиск идёт в базу.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final int loadPageSize;
+    private final long refreshIntervalSeconds;
+    private final Timer rebuildTimer;
+    private final ScheduledExecutorService refresher;
+
+    private volatile Index index;
+    //изменения,пришедшие во время перестройки; проигрываются на новом индексе перед подменой
+    private List<Consumer<Index>> pendingChanges;
+
+    public UserSearchIndex(UserRepository userRepository,
+                           @Value("${auth.users.search.index-enabled:true}") boolean enabled,
+                           @Value("${auth.users.search.load-page-size:5000}") int loadPageSize,
+                           @Value("${auth.users.search.refresh-interval-seconds:600}") long refreshIntervalSeconds,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.loadPageSize = loadPageSize;
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+        this.rebuildTimer = Timer.builder("user.search.index.rebuild").register(meterRegistry);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("user.search.index.size", this, UserSearchIndex::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        refresher.execute(this::rebuildQuietly);
+        if (refreshIntervalSeconds > 0) {
+            refresher.scheduleWithFixedDelay(this::rebuildQuietly,
+                    refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public int size() {
+        Index current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Не больше {@code limit} пользователей, чей email содержит {@code query}, строго после курсора
+     * ({@code null} - с начала выдачи).
+     */
+    public List<UserInfoResponse> search(String query, SearchCursor after, int limit) {
+        Index current = index;
+        if (current == null) {
+            throw new IllegalStateException("User search index is not built yet");
+        }
+        return current.search(normalize(query), after, limit);
+    }
+
+    /** Добавляет пользователя или меняет его email; внутри транзакции - после коммита. */
+    public void put(UUID id, String email) {
+        if (!enabled || id == null || email == null) {
+            return;
+        }
+        Runnable change = () -> apply(i -> i.put(id, email));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /** Полная перестройка из базы постранично по id. Вызывается только из одного потока. */
+    public void rebuild() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        try {
+            Index fresh = rebuildTimer.record(this::load);
+            synchronized (this) {
+                pendingChanges.forEach(change -> change.accept(fresh));
+                index = fresh;
+            }
+        } finally {
+            synchronized (this) {
+                pendingChanges = null;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            //остаёмся на прежнем индексе (или на поиске в базе),попробуем при следующем обновлении
+            log.warn("User search index rebuild failed", e);
+        }
+    }
+
+    private Index load() {
+        Index fresh = new Index();
+        List<UserInfoResponse> page = userRepository.findSearchEntries(PageRequest.of(0, loadPageSize));
+        while (!page.isEmpty()) {
+            page.forEach(entry -> fresh.put(entry.getId(), entry.getEmail()));
+            if (page.size() < loadPageSize) {
+                break;
+            }
+            UUID last = page.get(page.size() - 1).getId();
+            page = userRepository.findSearchEntriesAfter(last, PageRequest.of(0, loadPageSize));
+        }
+        return fresh;
+    }
+
+    private synchronized void apply(Consumer<Index> change) {
+        if (index != null) {
+            change.accept(index);
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private record Doc(UUID id, String email, String normalized, String sortKey) {
+        UserInfoResponse toResponse() {
+            return new UserInfoResponse(id, email);
+        }
+    }
+
+    //отсортированный по возрастанию список документов; номера документов только растут
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+    }
+
+    private static final class Index {
+        private static final int GRAM = 3;
+        private static final Comparator<Doc> BY_KEY = Comparator.comparing(Doc::sortKey);
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Doc> docs = new ArrayList<>();
+        private final Map<UUID, Integer> docByUser = new HashMap<>();
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private final NavigableMap<String, Integer> byEmail = new TreeMap<>();
+        private int removed;
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return docByUser.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(UUID id, String email) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = docByUser.get(id);
+                if (existing != null) {
+                    if (docs.get(existing).email().equals(email)) {
+                        return;
+                    }
+                    //из списков документ не вычищаем,только помечаем удалённым
+                    byEmail.remove(docs.get(existing).sortKey());
+                    docs.set(existing, null);
+                    removed++;
+                }
+                add(id, email);
+                if (removed > 1024 && removed > docByUser.size()) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void add(UUID id, String email) {
+            int doc = docs.size();
+            String normalized = normalize(email);
+            Doc entry = new Doc(id, email, normalized, SearchCursor.sortKey(normalized, id));
+            docs.add(entry);
+            docByUser.put(id, doc);
+            byEmail.put(entry.sortKey(), doc);
+            for (int i = 0; i + GRAM <= normalized.length(); i++) {
+                postings.computeIfAbsent(gram(normalized, i), k -> new Postings()).add(doc);
+            }
+        }
+
+        private void compact() {
+            List<Doc> live = new ArrayList<>(docByUser.size());
+            for (Doc doc : docs) {
+                if (doc != null) {
+                    live.add(doc);
+                }
+            }
+            docs.clear();
+            docByUser.clear();
+            postings.clear();
+            byEmail.clear();
+            removed = 0;
+            live.forEach(doc -> add(doc.id(), doc.email()));
+        }
+
+        List<UserInfoResponse> search(String q, SearchCursor after, int limit) {
+            List<UserInfoResponse> result = new ArrayList<>(Math.min(limit, 64));
+            if (q.isEmpty() || limit <= 0) {
+                return result;
+            }
+            lock.readLock().lock();
+            try {
+                if (after == null || after.prefix()) {
+                    String from = after != null ? after.sortKey() : q;
+                    String to = q + Character.MAX_VALUE;
+                    if (from.compareTo(to) < 0) {
+                        for (int doc : byEmail.subMap(from, after == null, to, false).values()) {
+                            result.add(docs.get(doc).toResponse());
+                            if (result.size() == limit) {
+                                return result;
+                            }
+                        }
+                    }
+                }
+                String from = after != null && !after.prefix() ? after.sortKey() : null;
+                collectSubstring(q, from, limit - result.size(), result);
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /*
+        Вхождения не с начала строки,по возрастанию ключа после from. Два способа:
+        по самому короткому списку триграмм с кучей на need элементов (редкие подстроки)
+        или проход по словарю от курсора с проверкой contains (частые подстроки,нужные
+        элементы встречаются быстро). Выбираем тот,что дешевле: |список| против need * N / |список|.
+        */
+        private void collectSubstring(String q, String from, int need, List<UserInfoResponse> result) {
+            if (need <= 0) {
+                return;
+            }
+            Postings[] lists = q.length() >= GRAM ? gramLists(q) : null;
+            if (lists != null && lists.length == 0) {
+                return;
+            }
+            if (lists != null && (long) lists[0].size * lists[0].size <= (long) need * docByUser.size()) {
+                collectFromPostings(q, from, need, lists, result);
+            } else {
+                collectByScan(q, from, need, result);
+            }
+        }
+
+        //пересечение списков: идём по самому короткому,остальные проверяем бинарным поиском
+        private void collectFromPostings(String q, String from, int need, Postings[] lists,
+                                         List<UserInfoResponse> result) {
+            PriorityQueue<Doc> best = new PriorityQueue<>(need + 1, BY_KEY.reversed());
+            Postings smallest = lists[0];
+            for (int i = 0; i < smallest.size; i++) {
+                int doc = smallest.docs[i];
+                Doc entry = docs.get(doc);
+                if (entry == null || entry.normalized().startsWith(q)
+                        || (from != null && entry.sortKey().compareTo(from) <= 0)) {
+                    continue;
+                }
+                if (best.size() == need && entry.sortKey().compareTo(best.peek().sortKey()) >= 0) {
+                    continue;
+                }
+                //все триграммы на месте,но не обязательно подряд
+                if (!inAll(lists, doc) || !entry.normalized().contains(q)) {
+                    continue;
+                }
+                best.add(entry);
+                if (best.size() > need) {
+                    best.poll();
+                }
+            }
+            List<Doc> page = new ArrayList<>(best);
+            page.sort(BY_KEY);
+            page.forEach(entry -> result.add(entry.toResponse()));
+        }
+
+        private void collectByScan(String q, String from, int need, List<UserInfoResponse> result) {
+            Map<String, Integer> tail = from != null ? byEmail.tailMap(from, false) : byEmail;
+            int found = 0;
+            for (int doc : tail.values()) {
+                Doc entry = docs.get(doc);
+                if (!entry.normalized().startsWith(q) && entry.normalized().contains(q)) {
+                    result.add(entry.toResponse());
+                    if (++found == need) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        //списки всех триграмм запроса,самый короткий первым; пустой массив,если какой-то триграммы нет
+        private Postings[] gramLists(String q) {
+            Map<Long, Postings> lists = new LinkedHashMap<>();
+            for (int i = 0; i + GRAM <= q.length(); i++) {
+                long gram = gram(q, i);
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return new Postings[0];
+                }
+                lists.put(gram, list);
+            }
+            Postings[] sorted = lists.values().toArray(new Postings[0]);
+            Arrays.sort(sorted, Comparator.comparingInt(p -> p.size));
+            return sorted;
+        }
+
+        private static boolean inAll(Postings[] lists, int doc) {
+            for (int i = 1; i < lists.length; i++) {
+                if (!lists[i].contains(doc)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package ru.balybin.monkey_backend.service;
 
+import ru.balybin.monkey_backend.DTO.response.UserBatchResponse;
+import ru.balybin.monkey_backend.DTO.response.UserSearchResponse;
 import ru.balybin.monkey_backend.DTO.response.UserProfileResponse;
+import ru.balybin.monkey_backend.config.UserPrincipal;
 import ru.balybin.monkey_backend.exception.UserException;
 import ru.balybin.monkey_backend.model.User;
 import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
@@ -15,9 +18,14 @@ public interface UserService {
 
     public User findUserById(UUID id) throws UserException;
 
-    public UserProfileResponse findUserProfile(String jwt) throws UserException;
+    public UserBatchResponse findUsersByIds(List<UUID> ids) throws UserException;
+
+    public UserProfileResponse findUserProfile(UserPrincipal principal) throws UserException;
 
     public UserProfileResponse updateUser(UUID user_id, UpdateProfileRequest req) throws UserException;
 
-    public List<User> searchUser(String query);
+    public UserSearchResponse searchUser(String query, String cursor, int limit) throws UserException;
+
+    /** Гасит все access- и refresh-токены пользователя, возвращает новую версию токенов. */
+    public long logoutEverywhere(UUID userId) throws UserException;
 }
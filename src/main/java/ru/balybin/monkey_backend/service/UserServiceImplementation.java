@@ -1,34 +1,71 @@
 package ru.balybin.monkey_backend.service;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
+import ru.balybin.monkey_backend.DTO.response.UserBatchResponse;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
 import ru.balybin.monkey_backend.DTO.response.UserProfileResponse;
-import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.DTO.response.UserSearchResponse;
+import ru.balybin.monkey_backend.config.TokenVersions;
 import ru.balybin.monkey_backend.config.UserMapper;
+import ru.balybin.monkey_backend.config.UserPrincipal;
 import ru.balybin.monkey_backend.exception.UserException;
+import ru.balybin.monkey_backend.model.TokenRevocation;
 import ru.balybin.monkey_backend.model.User;
 import ru.balybin.monkey_backend.repository.UserRepository;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class UserServiceImplementation implements UserService {
 
+    //пустой email меньше любого,поэтому с таким курсором выдача начинается с начала
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
     private UserRepository userRepository;
-    private TokenProvider tokenProvider;
     private UserMapper userMapper;
     private PasswordEncoder passwordEncoder;
+    private ProfileVersionCache profileVersionCache;
+    private UserDirectoryCache userDirectoryCache;
+    private UserSearchIndex userSearchIndex;
+    private RefreshTokenService refreshTokenService;
+    private TokenVersions tokenVersions;
+
+    private final int maxBatchSize;
+    //ограничение на число параметров в одном IN
+    private final int batchChunkSize;
+    private final int maxSearchResults;
 
-    public UserServiceImplementation(UserRepository userRepository, TokenProvider tokenProvider,
-                                     UserMapper userMapper, PasswordEncoder passwordEncoder) {
+    public UserServiceImplementation(UserRepository userRepository, UserMapper userMapper,
+                                     PasswordEncoder passwordEncoder, ProfileVersionCache profileVersionCache,
+                                     UserDirectoryCache userDirectoryCache, UserSearchIndex userSearchIndex,
+                                     RefreshTokenService refreshTokenService, TokenVersions tokenVersions,
+                                     @Value("${auth.users.batch.max-size:1000}") int maxBatchSize,
+                                     @Value("${auth.users.batch.chunk-size:500}") int batchChunkSize,
+                                     @Value("${auth.users.search.max-results:50}") int maxSearchResults) {
         this.userRepository = userRepository;
-        this.tokenProvider = tokenProvider;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
+        this.profileVersionCache = profileVersionCache;
+        this.userDirectoryCache = userDirectoryCache;
+        this.userSearchIndex = userSearchIndex;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenVersions = tokenVersions;
+        this.maxBatchSize = maxBatchSize;
+        this.batchChunkSize = batchChunkSize;
+        this.maxSearchResults = maxSearchResults;
     }
 
     @Override
@@ -39,12 +76,15 @@ public class UserServiceImplementation implements UserService {
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userDirectoryCache.put(savedUser);
+        userSearchIndex.put(savedUser.getId(), savedUser.getEmail());
+        return savedUser;
     }
 
     @Override
     public User findUserByEmail(String email) throws UserException {
-        User user = userRepository.findByEmail(email);
+        User user = userDirectoryCache.getByEmail(email, userRepository::findByEmail);
         if(user == null) {
             throw new UserException("User not found with email: " + email);
         }
@@ -53,34 +93,171 @@ public class UserServiceImplementation implements UserService {
 
     @Override
     public User findUserById(UUID id) {
-        Optional<User> opt = userRepository.findById(id);
-        if(opt.isPresent()){
-            return opt.get();
+        User user = userDirectoryCache.getById(id, key -> userRepository.findById(key).orElse(null));
+        if(user != null){
+            return user;
         }
         throw new UserException("User not found with id" + id);
     }
 
     @Override
-    public UserProfileResponse findUserProfile(String jwt) {
-        String email = tokenProvider.getEmailFromToken(jwt);
+    public UserBatchResponse findUsersByIds(List<UUID> ids) throws UserException {
+        LinkedHashSet<UUID> uniqueIds = new LinkedHashSet<>();
+        for (UUID id : ids) {
+            if (id != null) {
+                uniqueIds.add(id);
+            }
+        }
+        if (uniqueIds.size() > maxBatchSize) {
+            throw new UserException("Too many user ids in one batch, max is " + maxBatchSize);
+        }
+
+        //в базу уходят только те id,которых нет в кэше
+        Map<UUID, User> found = userDirectoryCache.getAllById(uniqueIds, this::loadUsersChunked);
+
+        List<UserInfoResponse> users = new ArrayList<>(found.size());
+        List<UUID> missingIds = new ArrayList<>();
+        for (UUID id : uniqueIds) {
+            User user = found.get(id);
+            if (user != null) {
+                users.add(userMapper.toInfoResponse(user));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new UserBatchResponse(users, missingIds);
+    }
+
+    private Map<UUID, User> loadUsersChunked(Set<UUID> ids) {
+        Map<UUID, User> loaded = new HashMap<>(ids.size() * 2);
+        List<UUID> chunk = new ArrayList<>(Math.min(batchChunkSize, ids.size()));
+        for (UUID id : ids) {
+            chunk.add(id);
+            if (chunk.size() == batchChunkSize) {
+                userRepository.findByIdIn(chunk).forEach(u -> loaded.put(u.getId(), u));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            userRepository.findByIdIn(chunk).forEach(u -> loaded.put(u.getId(), u));
+        }
+        return loaded;
+    }
+
+    @Override
+    public UserProfileResponse findUserProfile(UserPrincipal principal) {
+        // Токен уже проверен в JwtTokenValidator,повторно его не разбираем
+        String email = principal != null ? principal.getEmail() : null;
         if(email == null){
             throw new BadCredentialsException("Received invalid token");
         }
-        User user = findUserByEmail(email);
-        return userMapper.toProfileResponse(user);
+        UUID userId = principal.getUserId();
+        if (userId == null) {
+            return userMapper.toProfileResponse(findUserByEmail(email));
+        }
+        /* id и email уже есть в токене. Если профиль с момента выдачи токена не менялся,
+        отдаём ответ прямо из claims,иначе берём актуальные данные из базы */
+        if (profileVersionCache.isClaimsBacked()) {
+            Long currentVersion = profileVersionCache.current(userId);
+            if (currentVersion != null && currentVersion <= principal.getProfileVersion()) {
+                return new UserProfileResponse(userId, email);
+            }
+        }
+        return userMapper.toProfileResponse(findUserById(userId));
     }
 
+    /**
+     * Как {@code ReactiveUserService.updateUser}: строка читается в транзакции, то есть в обход кэша, а в базу уходит
+     * только email и версия профиля. Копия из кэша может отставать на ttl, и save() вернул бы её версию токенов
+     * поверх logout-all, сделанного на другом узле.
+     */
     @Override
+    @Transactional
     public UserProfileResponse updateUser(UUID userId, UpdateProfileRequest req) throws UserException {
-        User user = findUserById(userId);
+        User current = findUserById(userId);
+        //правим копию: изменения управляемой сущности dirty checking записал бы целиком
+        User user = new User(current.getId(), current.getEmail(), current.getPassword());
+        user.setProfileVersion(current.getProfileVersion());
         userMapper.updateUserFromRequest(user, req);
-        User updatedUser = userRepository.save(user);
-        return userMapper.toProfileResponse(updatedUser);
+        String oldEmail = current.getEmail();
+        String newEmail = user.getEmail();
+        if (!oldEmail.equals(newEmail)) {
+            //старые токены несут прежний email,поэтому /profile для них пойдёт в базу
+            user.setProfileVersion(user.getProfileVersion() + 1);
+        }
+        userRepository.updateEmail(userId, newEmail, user.getProfileVersion());
+        //Set.of не принимает повторов,а пустой или тот же email в запросе оставляет прежний
+        userDirectoryCache.invalidate(userId, oldEmail.equals(newEmail) ? Set.of(oldEmail) : Set.of(oldEmail, newEmail));
+        profileVersionCache.update(userId, user.getProfileVersion());
+        userSearchIndex.put(userId, newEmail);
+        return userMapper.toProfileResponse(user);
     }
 
+    /**
+     * Версия токенов растёт одним UPDATE, семейства refresh-токенов удаляются в той же транзакции:
+     * иначе по уцелевшему refresh-токену можно было бы получить новый access-токен. В {@link TokenVersions}
+     * отзыв попадает после коммита, остальные узлы подтянут его при следующем опросе.
+     */
     @Override
-    public List<User> searchUser(String query) {
-        List<User> users = userRepository.searchUsers(query);
-        return users;
+    @Transactional
+    public long logoutEverywhere(UUID userId) throws UserException {
+        Instant now = Instant.now();
+        if (userRepository.revokeTokens(userId, now) == 0) {
+            throw new UserException("User not found with id" + userId);
+        }
+        long version = userRepository.findTokenVersionById(userId);
+        refreshTokenService.deleteAllForUser(userId);
+        //email не менялся: запись по email без записи по id и так считается промахом
+        userDirectoryCache.invalidate(userId, Set.of());
+        tokenVersions.revoked(new TokenRevocation(userId, version, now));
+        return version;
+    }
+
+    @Override
+    public UserSearchResponse searchUser(String query, String cursor, int limit) {
+        if (query == null || query.isBlank()) {
+            return new UserSearchResponse(List.of(), null);
+        }
+        String normalized = UserSearchIndex.normalize(query);
+        SearchCursor after = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(limit, maxSearchResults));
+
+        //берём на одну строку больше,чтобы знать,есть ли следующая страница
+        List<UserInfoResponse> rows = userSearchIndex.isReady()
+                ? userSearchIndex.search(normalized, after, pageSize + 1)
+                : searchDatabase(normalized, after, pageSize + 1);
+        return toPage(rows, pageSize, normalized);
+    }
+
+    //лишняя строка отрезается и превращается в курсор следующей страницы
+    static UserSearchResponse toPage(List<UserInfoResponse> rows, int pageSize, String normalizedQuery) {
+        if (rows.size() <= pageSize) {
+            return new UserSearchResponse(rows, null);
+        }
+        List<UserInfoResponse> page = new ArrayList<>(rows.subList(0, pageSize));
+        String next = SearchCursor.after(page.get(pageSize - 1), normalizedQuery).encode();
+        return new UserSearchResponse(page, next);
+    }
+
+    static String escapeLike(String query) {
+        return query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private List<UserInfoResponse> searchDatabase(String query, SearchCursor after, int limit) {
+        String escaped = escapeLike(query);
+        String prefix = escaped + "%";
+        List<UserInfoResponse> rows = new ArrayList<>(limit);
+        if (after == null || after.prefix()) {
+            rows.addAll(userRepository.searchByPrefix(prefix,
+                    after != null ? after.email() : "", after != null ? after.id() : FIRST_ID,
+                    PageRequest.of(0, limit)));
+        }
+        if (rows.size() < limit) {
+            boolean resume = after != null && !after.prefix();
+            rows.addAll(userRepository.searchBySubstring("%" + escaped + "%", prefix,
+                    resume ? after.email() : "", resume ? after.id() : FIRST_ID,
+                    PageRequest.of(0, limit - rows.size())));
+        }
+        return rows;
     }
 }
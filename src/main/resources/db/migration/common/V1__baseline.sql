@@ -0,0 +1,19 @@
+-- Схема,которую до миграций создавал ddl-auto=update, ровно в том виде, что есть на старых базах. На уже
+-- существующей базе не выполняется: spring.flyway.baseline-on-migrate помечает её версией 1, поэтому всё,
+-- что появилось позже, добавляют следующие миграции
+CREATE TABLE users (
+    id       UUID         NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE refresh_tokens (
+    id         UUID                        NOT NULL,
+    token      VARCHAR(255)                NOT NULL,
+    user_id    UUID                        NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_refresh_tokens PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_token UNIQUE (token)
+);
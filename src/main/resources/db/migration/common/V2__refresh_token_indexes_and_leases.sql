@@ -0,0 +1,13 @@
+-- logout-all и удаление всех токенов пользователя (RefreshTokenRepository.deleteAllByUserId)
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens (user_id);
+
+-- фоновая чистка просроченных (RefreshTokenPurger); на базах после ddl-auto=update индекс уже может быть
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+
+-- аренды фоновых задач (SchedulerLeases)
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    name        VARCHAR(255)                NOT NULL,
+    owner       VARCHAR(255)                NOT NULL,
+    lease_until TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_scheduler_leases PRIMARY KEY (name)
+);
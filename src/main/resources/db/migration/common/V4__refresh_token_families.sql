@@ -0,0 +1,5 @@
+-- строка refresh_tokens - семейство подписанных refresh-токенов (RefreshTokenCodec): действителен только токен
+-- текущего поколения. Значение токена хранится только у старых непрозрачных токенов, они переводятся в семейства
+-- при первой ротации, после чего столбец token можно удалить
+ALTER TABLE refresh_tokens ADD COLUMN generation BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE refresh_tokens ALTER COLUMN token DROP NOT NULL;
@@ -0,0 +1,5 @@
+-- версия токенов пользователя: POST /api/auth/logout-all увеличивает её, и все выданные раньше токены
+-- отклоняются. Время отзыва нужно узлам, чтобы подтягивать свежие отзывы (TokenVersions) по индексу
+ALTER TABLE users ADD COLUMN token_version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE users ADD COLUMN tokens_revoked_at TIMESTAMP(6) WITH TIME ZONE;
+CREATE INDEX IF NOT EXISTS idx_users_tokens_revoked_at ON users (tokens_revoked_at);
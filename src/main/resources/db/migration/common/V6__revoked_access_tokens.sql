@@ -0,0 +1,11 @@
+-- отозванные по одному access-токены (jti). Строка нужна только до истечения токена, потом её удаляет
+-- RefreshTokenPurger. Узлы подтягивают свежие отзывы в фильтр (RevokedAccessTokens) по индексу на revoked_at
+CREATE TABLE revoked_access_tokens (
+    id         UUID                        NOT NULL,
+    user_id    UUID                        NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_revoked_access_tokens PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_access_tokens_revoked_at ON revoked_access_tokens (revoked_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_access_tokens_expires_at ON revoked_access_tokens (expires_at);
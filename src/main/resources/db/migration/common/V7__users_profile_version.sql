@@ -0,0 +1,3 @@
+-- версия профиля (ProfileVersionCache): растёт при смене email. На базах, которые ddl-auto=update успел
+-- обновить до перехода на Flyway, столбец уже есть
+ALTER TABLE users ADD COLUMN IF NOT EXISTS profile_version BIGINT DEFAULT 0 NOT NULL;
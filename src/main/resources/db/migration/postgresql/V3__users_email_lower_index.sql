@@ -0,0 +1,4 @@
+-- Поиск по email без учёта регистра (LOWER(email) LIKE 'abc%' в UserRepository.searchByPrefix, пока
+-- индекс в памяти не построен). text_pattern_ops - чтобы LIKE с префиксом шёл по индексу при любой collation.
+-- CONCURRENTLY не блокирует запись в users, поэтому скрипт выполняется вне транзакции (см. .conf)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_lower ON users (LOWER(email) text_pattern_ops);
@@ -0,0 +1,128 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdaptiveConcurrencyLimit limit(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimit("login", initial, min, max, 2.0, 0.9, meterRegistry);
+    }
+
+    //держит предел занятым и отпускает один запрос с заданной задержкой
+    private static void fullLoadRelease(AdaptiveConcurrencyLimit limit, long latencyNanos, boolean overloaded) {
+        while (limit.tryAcquire()) {
+            //добираем до предела
+        }
+        limit.release(latencyNanos, overloaded);
+    }
+
+    @Test
+    void testTryAcquire_RejectsOverLimitAndCounts() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = limit(2, 1, 10);
+
+        // Act & Assert
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.inFlight());
+        assertEquals(1.0, meterRegistry.get("auth.concurrency.rejected").tag("endpoint", "login").counter().count());
+        assertEquals(2.0, meterRegistry.get("auth.concurrency.limit").tag("endpoint", "login").gauge().value());
+    }
+
+    @Test
+    void testRelease_SteadyLatencyUnderLoadGrowsToMax() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = limit(4, 2, 8);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            fullLoadRelease(limit, FAST, false);
+        }
+
+        // Assert
+        assertEquals(8, limit.limit());
+    }
+
+    @Test
+    void testRelease_IdleDoesNotGrow() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = limit(10, 2, 100);
+
+        // Act - one request at a time says nothing about capacity
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST, false);
+        }
+
+        // Assert
+        assertEquals(10, limit.limit());
+    }
+
+    @Test
+    void testRelease_QueueingLatencyBacksOffToMin() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = limit(20, 3, 100);
+        for (int i = 0; i < 100; i++) {
+            fullLoadRelease(limit, FAST, false);
+        }
+        int before = limit.limit();
+
+        // Act - BCrypt queue builds up, latency goes 10x
+        for (int i = 0; i < 10; i++) {
+            fullLoadRelease(limit, SLOW, false);
+        }
+        int afterSpike = limit.limit();
+        for (int i = 0; i < 2000; i++) {
+            fullLoadRelease(limit, SLOW, false);
+        }
+
+        // Assert - at most one decrease per round of `limit` responses, never below min
+        assertTrue(afterSpike < before, before + " -> " + afterSpike);
+        assertTrue(afterSpike >= (int) (before * 0.9) - 1, "one round, one decrease: " + afterSpike);
+        assertTrue(limit.limit() >= 3);
+    }
+
+    @Test
+    void testRelease_FastMixDoesNotLookLikeQueueing() {
+        // Arrange - unknown emails fail in a millisecond, real logins hash for tens of milliseconds
+        AdaptiveConcurrencyLimit limit = limit(10, 2, 40);
+
+        // Act
+        for (int i = 0; i < 2000; i++) {
+            fullLoadRelease(limit, i % 2 == 0 ? TimeUnit.MILLISECONDS.toNanos(1) : FAST, false);
+        }
+
+        // Assert
+        assertEquals(40, limit.limit());
+    }
+
+    @Test
+    void testRelease_DownstreamOverloadBacksOff() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = limit(10, 2, 40);
+
+        // Act - the BCrypt pool rejects fast, latency alone would not notice
+        for (int i = 0; i < 30; i++) {
+            fullLoadRelease(limit, TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+
+        // Assert
+        assertTrue(limit.limit() < 10);
+    }
+
+    @Test
+    void testConstructor_RejectsInvertedBounds() {
+        assertThrows(IllegalArgumentException.class, () -> limit(5, 10, 2));
+    }
+}
@@ -0,0 +1,108 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthEventsTest {
+
+    private static final String SECRET = "testSecretKey1234567890123456789012345678901";
+
+    @TempDir
+    Path tempDir;
+
+    private List<RecordedEvent> record(boolean enableAuthEvents, Runnable action) throws Exception {
+        Path file = tempDir.resolve("auth.jfr");
+        try (Recording recording = new Recording()) {
+            if (enableAuthEvents) {
+                for (String name : List.of("TokenIssue", "PasswordHash", "TokenVerification", "RepositoryCall")) {
+                    recording.enable(AuthEvents.PREFIX + name).withoutThreshold();
+                }
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith(AuthEvents.PREFIX))
+                .toList();
+    }
+
+    @Test
+    void testEvents_OffUnlessProfileEnablesThem() throws Exception {
+        // Arrange
+        TokenProvider tokenProvider = new TokenProvider(SECRET);
+
+        // Act - a recording with default settings knows nothing about the auth events
+        List<RecordedEvent> events = record(false, () -> tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken("test@example.com", null), UUID.randomUUID()));
+
+        // Assert
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void testTokenIssue_Recorded() throws Exception {
+        // Arrange
+        TokenProvider tokenProvider = new TokenProvider(SECRET);
+
+        // Act
+        List<RecordedEvent> events = record(true, () -> tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken("test@example.com", null), UUID.randomUUID()));
+
+        // Assert
+        assertEquals(1, events.size());
+        assertEquals(AuthEvents.PREFIX + "TokenIssue", events.get(0).getEventType().getName());
+        assertEquals("success", events.get(0).getString("outcome"));
+        assertEquals(1, events.get(0).getInt("batchSize"));
+    }
+
+    @Test
+    void testPasswordHash_CarriesOperationOutcomeAndQueueWait() throws Exception {
+        // Arrange
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 8,
+                new SimpleMeterRegistry());
+        String hash = encoder.encode("password123");
+
+        try {
+            // Act
+            List<RecordedEvent> events = record(true, () -> {
+                encoder.matches("password123", hash);
+                encoder.matchesAsync("wrongPassword", hash).join();
+            });
+
+            // Assert
+            assertEquals(2, events.size());
+            assertEquals(List.of("match", "mismatch"), events.stream().map(e -> e.getString("outcome")).toList());
+            assertTrue(events.stream().allMatch(e -> "matches".equals(e.getString("operation"))));
+            assertTrue(events.stream().allMatch(e -> e.getDuration().toNanos() > 0));
+            assertTrue(events.stream().allMatch(e -> e.getLong("queueWait") >= 0));
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void testRepositoryBatchSize_FromArgumentsOrResult() {
+        // Act & Assert
+        assertEquals(3, RepositoryCallEvents.Recorder.batchSize(new Object[]{List.of(1, 2, 3)}, List.of()));
+        assertEquals(2, RepositoryCallEvents.Recorder.batchSize(new Object[]{"a"}, List.of("x", "y")));
+        assertEquals(7, RepositoryCallEvents.Recorder.batchSize(new Object[]{}, 7));
+        assertEquals(0, RepositoryCallEvents.Recorder.batchSize(new Object[]{"a"}, Optional.empty()));
+        assertEquals(1, RepositoryCallEvents.Recorder.batchSize(new Object[]{"a"}, Optional.of("x")));
+        assertEquals(0, RepositoryCallEvents.Recorder.batchSize(new Object[]{"a"}, null));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.balybin.monkey_backend.exception.UserException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthMetrics authMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authMetrics = new AuthMetrics(meterRegistry);
+    }
+
+    private double operations(String operation, String outcome) {
+        return meterRegistry.get("auth.operations").tag("operation", operation).tag("outcome", outcome)
+                .counter().count();
+    }
+
+    @Test
+    void testFailure_ClientAndServerErrorsCountedApart() {
+        // Act
+        authMetrics.success(AuthMetrics.Operation.LOGIN);
+        authMetrics.failure(AuthMetrics.Operation.LOGIN, new UserException("Wrong password"));
+        authMetrics.failure(AuthMetrics.Operation.LOGIN, new IllegalStateException("db down"));
+
+        // Assert
+        assertEquals(1.0, operations("login", "success"));
+        assertEquals(1.0, operations("login", "rejected"));
+        assertEquals(1.0, operations("login", "error"));
+        assertEquals(0.0, operations("refresh", "success"));
+    }
+
+    @Test
+    void testAllTagCombinations_RegisteredUpFront() {
+        // Assert - nothing is created on the request path
+        assertEquals(9, meterRegistry.find("auth.operations").counters().size());
+        assertEquals(3, meterRegistry.find("auth.jwt.requests").counters().size());
+
+        // Act
+        authMetrics.jwt(AuthMetrics.JwtOutcome.REVOKED);
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("auth.jwt.requests").tag("outcome", "revoked").counter().count());
+        assertEquals(12, meterRegistry.getMeters().size());
+    }
+}
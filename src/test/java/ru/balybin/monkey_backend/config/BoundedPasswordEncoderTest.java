@@ -0,0 +1,130 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.balybin.monkey_backend.exception.PasswordHashingOverloadException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void testEncodeAndMatches_DelegatesToBCrypt() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 8, meterRegistry);
+
+        // Act
+        String hash = encoder.encode("password123");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$"));
+        assertTrue(encoder.matches("password123", hash));
+        assertFalse(encoder.matches("wrongPassword", hash));
+        assertEquals(1, meterRegistry.get("password.hash.duration").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hash.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void testSaturatedPool_RejectsImmediately() throws Exception {
+        // Arrange - one worker and a queue of one, the worker is blocked until the latch opens
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(blocking, 1, 1, meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueDepth(1);
+
+        // Act & Assert
+        assertThrows(PasswordHashingOverloadException.class, () -> encoder.encode("c"));
+        assertEquals(1.0, meterRegistry.get("password.hash.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("password.hash.queue.depth").gauge().value());
+
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testAsync_CompletesOnPoolAndFailsFutureWhenSaturated() throws Exception {
+        // Arrange - the only worker is blocked, so the second task fills the queue
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return Thread.currentThread().getName().startsWith("password-hashing-");
+            }
+        };
+        encoder = new BoundedPasswordEncoder(blocking, 1, 1, meterRegistry);
+        CompletableFuture<String> running = encoder.encodeAsync("a");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = encoder.matchesAsync("b", "hash");
+        waitForQueueDepth(1);
+
+        // Act
+        CompletableFuture<String> rejected = encoder.encodeAsync("c");
+
+        // Assert - rejection is reported through the future, not thrown on the caller thread
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(PasswordHashingOverloadException.class, failure.getCause());
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private void waitForQueueDepth(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.getQueueDepth() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, encoder.getQueueDepth());
+    }
+}
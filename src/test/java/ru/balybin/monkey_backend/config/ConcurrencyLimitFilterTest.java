@@ -0,0 +1,115 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimits concurrencyLimits;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        concurrencyLimits = new ConcurrencyLimits(true, 1, 1, 4, 4, 2.0, 0.9, 3, new SimpleMeterRegistry());
+        filter = new ConcurrencyLimitFilter(concurrencyLimits);
+    }
+
+    private static MockHttpServletRequest post(String path) {
+        return new MockHttpServletRequest("POST", path);
+    }
+
+    @Test
+    void testFilter_OverLimitShedWithRetryAfter() throws Exception {
+        // Arrange - the only login slot is taken
+        assertTrue(concurrencyLimits.forRequest("POST", "/api/auth/login").tryAcquire());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(post("/api/auth/login"), response, chain);
+
+        // Assert
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("SERVICE_OVERLOADED"));
+        assertNull(chain.getRequest(), "controller is not reached");
+    }
+
+    @Test
+    void testFilter_OtherEndpointsKeepTheirHeadroom() throws Exception {
+        // Arrange
+        assertTrue(concurrencyLimits.forRequest("POST", "/api/auth/login").tryAcquire());
+
+        // Act & Assert - register has its own limit, refresh and users are not limited
+        for (String path : new String[]{"/api/auth/register", "/api/auth/refresh", "/api/users/batch"}) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(post(path), response, chain);
+            assertEquals(200, response.getStatus(), path);
+            assertNotNull(chain.getRequest(), path);
+        }
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/auth/login"), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void testFilter_ReleasesSlotAfterResponse() throws Exception {
+        // Act
+        filter.doFilter(post("/api/auth/login"), new MockHttpServletResponse(), new MockFilterChain());
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(post("/api/auth/login"), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+        assertEquals(0, concurrencyLimits.forRequest("POST", "/api/auth/login").inFlight());
+    }
+
+    @Test
+    void testReactiveFilter_OverLimitShedWithRetryAfter() {
+        // Arrange
+        ReactiveConcurrencyLimitFilter reactiveFilter = new ReactiveConcurrencyLimitFilter(concurrencyLimits);
+        assertTrue(concurrencyLimits.forRequest("POST", "/api/auth/register").tryAcquire());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/auth/register"));
+        AtomicBoolean reached = new AtomicBoolean();
+
+        // Act
+        reactiveFilter.filter(exchange, ex -> Mono.fromRunnable(() -> reached.set(true))).block();
+
+        // Assert
+        assertFalse(reached.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+        assertEquals("3", exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testReactiveFilter_SlotHeldUntilExchangeCompletes() {
+        // Arrange
+        ReactiveConcurrencyLimitFilter reactiveFilter = new ReactiveConcurrencyLimitFilter(concurrencyLimits);
+        AdaptiveConcurrencyLimit register = concurrencyLimits.forRequest("POST", "/api/auth/register");
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/auth/register"));
+        AtomicInteger inFlightDuringChain = new AtomicInteger(-1);
+
+        // Act
+        reactiveFilter.filter(exchange, ex -> Mono.fromRunnable(() -> inFlightDuringChain.set(register.inFlight())))
+                .block();
+
+        // Assert
+        assertEquals(1, inFlightDuringChain.get());
+        assertEquals(0, register.inFlight());
+    }
+}
@@ -0,0 +1,20 @@
+package ru.balybin.monkey_backend.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+//Каждый тестовый контекст начинает с пустой схемы,как раньше с ddl-auto=create-drop: clean и те же миграции
+@Configuration
+@Profile("test")
+public class FlywayTestConfig {
+
+    @Bean
+    public FlywayMigrationStrategy cleanMigrateStrategy() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
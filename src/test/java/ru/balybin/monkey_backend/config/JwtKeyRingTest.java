@@ -0,0 +1,158 @@
+package ru.balybin.monkey_backend.config;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    private static final String OLD_SECRET = "oldSecretKey1234567890123456789012345678901";
+    private static final String NEW_SECRET = "newSecretKey1234567890123456789012345678901";
+
+    @TempDir
+    Path dir;
+
+    private JwtKeyRing keyRing;
+
+    @AfterEach
+    void tearDown() {
+        if (keyRing != null) {
+            keyRing.shutdown();
+        }
+    }
+
+    @Test
+    void testSingleKey_TokenCarriesKid() {
+        // Arrange
+        TokenProvider tokenProvider = new TokenProvider(JwtKeyRing.of("k1", OLD_SECRET));
+        Authentication auth = new UsernamePasswordAuthenticationToken("test@example.com", null);
+
+        // Act
+        String token = tokenProvider.generateToken(auth, UUID.randomUUID());
+
+        // Assert
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        assertTrue(header.contains("\"kid\":\"k1\""), "kid header should name the signing key: " + header);
+    }
+
+    @Test
+    void testRotation_OldTokensStayValidUntilKeyIsRemoved() throws IOException {
+        // Arrange - a file with only the old key
+        Path file = writeKeys("current=old\nold=" + OLD_SECRET + "\n", 1_000);
+        keyRing = new JwtKeyRing("unused", null, null, "unused", file.toString(), 0, null);
+        TokenProvider tokenProvider = new TokenProvider(keyRing);
+        Authentication auth = new UsernamePasswordAuthenticationToken("test@example.com", null);
+        String oldToken = tokenProvider.generateToken(auth, UUID.randomUUID());
+
+        // Act - rotate: the new key signs, the old one only verifies
+        writeKeys("current=new\nnew=" + NEW_SECRET + "\nold=" + OLD_SECRET + "\n", 2_000);
+        assertTrue(keyRing.reload());
+        String newToken = tokenProvider.generateToken(auth, UUID.randomUUID());
+
+        // Assert
+        assertEquals("new", keyRing.signingKey().kid());
+        assertEquals(Set.of("new", "old"), keyRing.kids());
+        assertEquals("test@example.com", tokenProvider.getEmailFromToken(oldToken));
+        assertEquals("test@example.com", tokenProvider.getEmailFromToken(newToken));
+
+        // Act - retire the old key
+        writeKeys("current=new\nnew=" + NEW_SECRET + "\n", 3_000);
+        assertTrue(keyRing.reload());
+
+        // Assert
+        assertThrows(Exception.class, () -> tokenProvider.verify(oldToken));
+        assertEquals("test@example.com", tokenProvider.getEmailFromToken(newToken));
+    }
+
+    @Test
+    void testBrokenFile_KeepsPreviousKeys() throws IOException {
+        // Arrange
+        Path file = writeKeys("current=old\nold=" + OLD_SECRET + "\n", 1_000);
+        keyRing = new JwtKeyRing("unused", null, null, "unused", file.toString(), 0, null);
+
+        // Act - current points to a key that is not in the file
+        writeKeys("current=missing\nold=" + OLD_SECRET + "\n", 2_000);
+        boolean applied = keyRing.reload();
+
+        // Assert
+        assertFalse(applied);
+        assertEquals("old", keyRing.signingKey().kid());
+    }
+
+    @Test
+    void testUnknownKid_IsRejectedWithoutTryingOtherKeys() {
+        // Arrange - token signed with the same secret but under a kid the ring does not know
+        TokenProvider issuer = new TokenProvider(JwtKeyRing.of("other", OLD_SECRET));
+        TokenProvider verifier = new TokenProvider(JwtKeyRing.of("k1", OLD_SECRET));
+        String token = issuer.generateToken(new UsernamePasswordAuthenticationToken("test@example.com", null),
+                UUID.randomUUID());
+
+        // Act & Assert
+        assertThrows(Exception.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void testAsymmetricKeys_SignAndVerifyWithPublicKeyOnly() throws Exception {
+        for (String algorithm : new String[]{"EC", "Ed25519"}) {
+            // Arrange
+            KeyPair keyPair = KeyPairGenerator.getInstance(algorithm).generateKeyPair();
+            TokenProvider issuer = new TokenProvider(JwtKeyRing.of("k1", keyPair));
+            String token = issuer.generateToken(new UsernamePasswordAuthenticationToken("test@example.com", null),
+                    UUID.randomUUID());
+
+            // Act - a downstream service verifies with nothing but the published public key
+            String email = Jwts.parser().verifyWith(keyPair.getPublic()).build()
+                    .parseSignedClaims(token).getPayload().get("email", String.class);
+
+            // Assert
+            assertEquals("test@example.com", email, algorithm);
+            assertEquals("test@example.com", issuer.getEmailFromToken(token), algorithm);
+        }
+    }
+
+    @Test
+    void testJwks_PublishesOnlyPublicAsymmetricKeys() throws Exception {
+        // Arrange - the new EC key signs, the old HMAC secret still verifies
+        KeyPair keyPair = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        Base64.Encoder base64 = Base64.getEncoder();
+        Path file = writeKeys("current=ec1\n"
+                + "ec1.private=" + base64.encodeToString(keyPair.getPrivate().getEncoded()) + "\n"
+                + "ec1.public=" + base64.encodeToString(keyPair.getPublic().getEncoded()) + "\n"
+                + "old=" + OLD_SECRET + "\n", 1_000);
+        keyRing = new JwtKeyRing(null, null, null, "unused", file.toString(), 0, null);
+
+        // Act
+        JwtKeyRing.JwksDocument jwks = keyRing.jwks();
+        String json = new String(jwks.json());
+
+        // Assert
+        assertEquals(Set.of("ec1", "old"), keyRing.kids());
+        assertTrue(json.contains("\"kid\":\"ec1\""), json);
+        assertTrue(json.contains("\"kty\":\"EC\""), json);
+        assertFalse(json.contains("\"d\""), "private part must not be published: " + json);
+        assertFalse(json.contains("\"old\""), "HMAC secrets must not be published: " + json);
+        assertSame(jwks, keyRing.jwks(), "document is built once per key set");
+    }
+
+    private Path writeKeys(String content, long modifiedMillis) throws IOException {
+        Path file = dir.resolve("jwt-keys.properties");
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+        return file;
+    }
+}
@@ -0,0 +1,66 @@
+package ru.balybin.monkey_backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenCodecTest {
+
+    private static final String JWT_SECRET = "Peanut_Butter_Jelly_The_Long_Way_Secret_Key_123";
+
+    private final RefreshTokenCodec codec = new RefreshTokenCodec("", JWT_SECRET);
+
+    private RefreshTokenCodec.Claims claims() {
+        return new RefreshTokenCodec.Claims(UUID.randomUUID(), UUID.randomUUID(), 42,
+                Instant.ofEpochSecond(Instant.now().getEpochSecond() + 3600));
+    }
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        // Arrange
+        RefreshTokenCodec.Claims claims = claims();
+
+        // Act
+        String token = codec.encode(claims);
+
+        // Assert
+        assertEquals(claims, codec.decode(token));
+        assertTrue(token.length() < 120, "token is " + token.length() + " chars");
+    }
+
+    @Test
+    void testDecode_TamperedPayload_ReturnsNull() {
+        // Arrange
+        RefreshTokenCodec.Claims claims = claims();
+        String token = codec.encode(claims);
+        String otherPayload = codec.encode(new RefreshTokenCodec.Claims(claims.userId(), claims.familyId(),
+                claims.generation() + 1, claims.expiresAt()));
+
+        // Act
+        String forged = otherPayload.substring(0, otherPayload.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        // Assert
+        assertNull(codec.decode(forged));
+    }
+
+    @Test
+    void testDecode_OtherKey_ReturnsNull() {
+        // Arrange
+        RefreshTokenCodec other = new RefreshTokenCodec("another-refresh-secret-with-enough-bytes", JWT_SECRET);
+
+        // Act & Assert
+        assertNull(codec.decode(other.encode(claims())));
+    }
+
+    @Test
+    void testDecode_NotOurFormat_ReturnsNull() {
+        assertNull(codec.decode(null));
+        assertNull(codec.decode(UUID.randomUUID().toString()));
+        assertNull(codec.decode("a.b"));
+        assertNull(codec.decode("a.b.c"));
+        assertNull(codec.decode("!!!.???"));
+    }
+}
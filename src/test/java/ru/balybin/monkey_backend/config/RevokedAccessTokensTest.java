@@ -0,0 +1,110 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import ru.balybin.monkey_backend.model.RevokedAccessToken;
+import ru.balybin.monkey_backend.repository.RevokedAccessTokenRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RevokedAccessTokensTest {
+
+    private RevokedAccessTokenRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private RevokedAccessTokens revokedAccessTokens;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedAccessTokenRepository.class);
+        when(repository.save(any(RevokedAccessToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        meterRegistry = new SimpleMeterRegistry();
+        revokedAccessTokens = new RevokedAccessTokens(repository, 0, 1000, 0.001, meterRegistry);
+    }
+
+    private UserPrincipal principal(UUID tokenId) {
+        return new UserPrincipal("test@example.com", UUID.randomUUID(), AuthorityUtils.NO_AUTHORITIES,
+                Instant.now().plusSeconds(3600), 0L, 0L, tokenId);
+    }
+
+    @Test
+    void testNotRevoked_NoDatabaseCall() {
+        // Act
+        boolean revoked = revokedAccessTokens.isRevoked(principal(UUID.randomUUID()));
+
+        // Assert
+        assertFalse(revoked);
+        verify(repository, never()).existsById(any());
+    }
+
+    @Test
+    void testRevoke_ConfirmedOnceThenFromMemory() {
+        // Arrange
+        UserPrincipal principal = principal(UUID.randomUUID());
+        when(repository.existsById(principal.getTokenId())).thenReturn(true);
+
+        // Act
+        revokedAccessTokens.revoke(principal);
+        boolean first = revokedAccessTokens.isRevoked(principal);
+        boolean second = revokedAccessTokens.isRevoked(principal);
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        verify(repository, times(1)).existsById(principal.getTokenId());
+        assertEquals(2.0, meterRegistry.get("auth.tokens.revoked.filter.hits")
+                .tag("result", "revoked").counter().count());
+    }
+
+    @Test
+    void testTokenWithoutId_NeverRevokedIndividually() {
+        // Arrange
+        UserPrincipal legacy = principal(null);
+
+        // Act & Assert
+        assertFalse(revokedAccessTokens.isRevoked(legacy));
+        assertThrows(IllegalArgumentException.class, () -> revokedAccessTokens.revoke(legacy));
+    }
+
+    @Test
+    void testPoll_AddsRevocationsFromOtherNodes() {
+        // Arrange
+        UserPrincipal remote = principal(UUID.randomUUID());
+        UserPrincipal expired = principal(UUID.randomUUID());
+        when(repository.findRevokedAfter(any())).thenReturn(List.of(
+                new RevokedAccessToken(remote.getTokenId(), remote.getUserId(), remote.getExpiresAt(), Instant.now()),
+                new RevokedAccessToken(expired.getTokenId(), expired.getUserId(),
+                        Instant.now().minusSeconds(60), Instant.now())));
+
+        // Act
+        revokedAccessTokens.poll();
+
+        // Assert
+        assertTrue(revokedAccessTokens.mightBeRevoked(remote));
+        assertFalse(revokedAccessTokens.mightBeRevoked(expired));
+    }
+
+    @Test
+    void testPoll_ForgetsRememberedNegativeAnswer() {
+        // Arrange - the exact check answered "not revoked" before the row became visible
+        UserPrincipal principal = principal(UUID.randomUUID());
+        when(repository.existsById(principal.getTokenId())).thenReturn(false, true);
+        revokedAccessTokens.revoke(principal);
+        assertFalse(revokedAccessTokens.isRevoked(principal));
+        when(repository.findRevokedAfter(any())).thenReturn(List.of(new RevokedAccessToken(
+                principal.getTokenId(), principal.getUserId(), principal.getExpiresAt(), Instant.now())));
+
+        // Act
+        revokedAccessTokens.poll();
+
+        // Assert
+        assertTrue(revokedAccessTokens.isRevoked(principal));
+    }
+}
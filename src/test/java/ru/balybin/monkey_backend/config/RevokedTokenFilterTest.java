@@ -0,0 +1,90 @@
+package ru.balybin.monkey_backend.config;
+
+import org.junit.jupiter.api.Test;
+import ru.balybin.monkey_backend.model.TimeOrderedUuid;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevokedTokenFilterTest {
+
+    @Test
+    void testAdded_AlwaysFound() {
+        // Arrange
+        RevokedTokenFilter filter = new RevokedTokenFilter(1000, 0.001);
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(3));
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            added.add(TimeOrderedUuid.next());
+        }
+
+        // Act
+        added.forEach(jti -> filter.add(jti, expiresAt));
+
+        // Assert - a Bloom filter never gives false negatives
+        for (UUID jti : added) {
+            assertTrue(filter.mightContain(jti, expiresAt));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRate_CloseToConfigured() {
+        // Arrange - time-ordered ids share their high bits, the hash must still spread them
+        RevokedTokenFilter filter = new RevokedTokenFilter(10_000, 0.001);
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(3));
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(TimeOrderedUuid.next(), expiresAt);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(TimeOrderedUuid.next(), expiresAt)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 500, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testLookup_OnlyInBucketOfOwnExpiry() {
+        // Arrange
+        RevokedTokenFilter filter = new RevokedTokenFilter(100, 0.001);
+        UUID jti = TimeOrderedUuid.next();
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(3));
+
+        // Act
+        filter.add(jti, expiresAt);
+
+        // Assert
+        assertFalse(filter.mightContain(jti, expiresAt.plus(RevokedTokenFilter.BUCKET)));
+        assertFalse(filter.mightContain(TimeOrderedUuid.next(), expiresAt.plus(Duration.ofHours(5))));
+        assertEquals(1, filter.buckets());
+    }
+
+    @Test
+    void testEvictExpired_DropsBucketsWhoseTokensAllExpired() {
+        // Arrange
+        RevokedTokenFilter filter = new RevokedTokenFilter(100, 0.001);
+        Instant now = Instant.now();
+        UUID expired = TimeOrderedUuid.next();
+        UUID live = TimeOrderedUuid.next();
+        filter.add(expired, now.minus(Duration.ofHours(2)));
+        filter.add(live, now.plus(Duration.ofHours(2)));
+
+        // Act
+        int evicted = filter.evictExpired(now);
+
+        // Assert
+        assertEquals(1, evicted);
+        assertEquals(1, filter.buckets());
+        assertTrue(filter.mightContain(live, now.plus(Duration.ofHours(2))));
+    }
+}
@@ -0,0 +1,115 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.balybin.monkey_backend.exception.TooManyAttemptsException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testTryAcquire_BurstThenSteadyRate() {
+        // Arrange - 5 attempts, one more every 12 seconds
+        StripedRateLimiter limiter = StripedRateLimiter.parse("5/1m", 1000);
+        long now = 1_000 * SECOND;
+
+        // Act & Assert
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("test@example.com", now));
+        }
+        assertEquals(12 * SECOND, limiter.tryAcquire("test@example.com", now));
+        assertEquals(2 * SECOND, limiter.tryAcquire("test@example.com", now + 10 * SECOND));
+        assertEquals(0, limiter.tryAcquire("test@example.com", now + 12 * SECOND));
+        assertTrue(limiter.tryAcquire("test@example.com", now + 12 * SECOND) > 0);
+    }
+
+    @Test
+    void testTryAcquire_KeysAreIndependent() {
+        // Arrange
+        StripedRateLimiter limiter = new StripedRateLimiter(1, Duration.ofMinutes(1), 1000);
+
+        // Act & Assert
+        assertEquals(0, limiter.tryAcquire("a@example.com", 0));
+        assertTrue(limiter.tryAcquire("a@example.com", 0) > 0);
+        assertEquals(0, limiter.tryAcquire("b@example.com", 0));
+    }
+
+    @Test
+    void testTryAcquire_IdleDoesNotBankExtraTokens() {
+        // Arrange
+        StripedRateLimiter limiter = new StripedRateLimiter(2, Duration.ofSeconds(2), 1000);
+
+        // Act - an hour of silence still allows only one burst
+        assertEquals(0, limiter.tryAcquire("key", 0));
+        long later = TimeUnit.HOURS.toNanos(1);
+
+        // Assert
+        assertEquals(0, limiter.tryAcquire("key", later));
+        assertEquals(0, limiter.tryAcquire("key", later));
+        assertTrue(limiter.tryAcquire("key", later) > 0);
+    }
+
+    @Test
+    void testTryAcquire_MemoryBoundedUnderKeyFlood() {
+        // Arrange - 64 stripes with 16 keys each
+        StripedRateLimiter limiter = new StripedRateLimiter(3, Duration.ofSeconds(3), 1024);
+
+        // Act - a flood of random emails at one instant, nothing is idle yet
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("user" + i + "@example.com", 0);
+        }
+
+        // Assert
+        assertTrue(limiter.size() <= 1024, "bounded: " + limiter.size());
+    }
+
+    @Test
+    void testTryAcquire_IdleKeysMakeRoomForNewOnes() {
+        // Arrange - one attempt each, the buckets are full again after a second
+        StripedRateLimiter limiter = new StripedRateLimiter(3, Duration.ofSeconds(3), 100_000);
+        for (int i = 0; i < 500; i++) {
+            limiter.tryAcquire("early" + i + "@example.com", 0);
+        }
+
+        // Act
+        for (int i = 0; i < 500; i++) {
+            limiter.tryAcquire("late" + i + "@example.com", 2 * SECOND);
+        }
+
+        // Assert - full buckets are dropped on insert, well under the cap
+        assertTrue(limiter.size() < 600, "idle keys evicted: " + limiter.size());
+    }
+
+    @Test
+    void testParse_RejectsMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> StripedRateLimiter.parse("5", 10));
+        assertThrows(IllegalArgumentException.class, () -> StripedRateLimiter.parse("0/1m", 10));
+    }
+
+    @Test
+    void testAuthRateLimits_NormalizedEmailAndRetryAfter() {
+        // Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthRateLimits rateLimits = new AuthRateLimits(true, "2/1m", "", "", "", 1000, meterRegistry);
+
+        // Act - case and whitespace do not make a fresh bucket
+        rateLimits.checkLogin("Test@Example.com", "198.51.100.1");
+        rateLimits.checkLogin(" test@example.com", "198.51.100.2");
+        TooManyAttemptsException e = assertThrows(TooManyAttemptsException.class,
+                () -> rateLimits.checkLogin("TEST@EXAMPLE.COM", "198.51.100.3"));
+
+        // Assert
+        assertEquals(30, e.getRetryAfterSeconds());
+        assertEquals(0, e.getStackTrace().length, "rejections skip the stack walk");
+        assertEquals(1.0, meterRegistry.get("auth.rate_limit.rejected").tag("endpoint", "login").tag("key", "email")
+                .counter().count());
+        assertTrue(meterRegistry.find("auth.rate_limit.rejected").tag("key", "address").meters().isEmpty(),
+                "an empty spec turns the limit off");
+    }
+}
@@ -33,6 +33,20 @@ class TokenProviderTest {
         assertFalse(token.isEmpty());
     }
 
+    @Test
+    void testGenerateToken_EveryTokenHasOwnId() {
+        // Arrange
+        Authentication auth = new UsernamePasswordAuthenticationToken("test@example.com", null);
+
+        // Act
+        UserPrincipal first = tokenProvider.verify(tokenProvider.generateToken(auth, TEST_USER_ID));
+        UserPrincipal second = tokenProvider.verify(tokenProvider.generateToken(auth, TEST_USER_ID));
+
+        // Assert
+        assertNotNull(first.getTokenId());
+        assertNotEquals(first.getTokenId(), second.getTokenId());
+    }
+
     @Test
     void testGetEmailFromToken_Success() {
         // Arrange
@@ -0,0 +1,112 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import ru.balybin.monkey_backend.model.TokenRevocation;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenVersionsTest {
+
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenVersions tokenVersions;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenVersions = new TokenVersions(userRepository, 0, meterRegistry);
+    }
+
+    private UserPrincipal principal(UUID userId, long tokenVersion) {
+        return new UserPrincipal("test@example.com", userId, AuthorityUtils.NO_AUTHORITIES,
+                Instant.now().plusSeconds(3600), 0L, tokenVersion);
+    }
+
+    @Test
+    void testIsRevoked_OnlyOlderVersions() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+
+        // Act
+        tokenVersions.revoked(new TokenRevocation(userId, 2, Instant.now()));
+
+        // Assert
+        assertTrue(tokenVersions.isRevoked(principal(userId, 0)));
+        assertTrue(tokenVersions.isRevoked(principal(userId, 1)));
+        assertFalse(tokenVersions.isRevoked(principal(userId, 2)));
+        assertFalse(tokenVersions.isRevoked(principal(UUID.randomUUID(), 0)), "other users are not affected");
+    }
+
+    @Test
+    void testCurrent_NeverBelowKnownRevocation() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        tokenVersions.revoked(new TokenRevocation(userId, 3, Instant.now()));
+
+        // Act & Assert - a stale stored version is raised, a newer one is kept
+        assertEquals(3, tokenVersions.current(userId, 1));
+        assertEquals(5, tokenVersions.current(userId, 5));
+        assertEquals(7, tokenVersions.current(UUID.randomUUID(), 7));
+    }
+
+    @Test
+    void testRevoked_KeepsHigherVersion() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+
+        // Act - a late poll result must not roll back a newer local revocation
+        tokenVersions.revoked(new TokenRevocation(userId, 4, Instant.now()));
+        tokenVersions.revoked(new TokenRevocation(userId, 3, Instant.now()));
+
+        // Assert
+        assertTrue(tokenVersions.isRevoked(principal(userId, 3)));
+    }
+
+    @Test
+    void testPoll_AppliesRemoteAndForgetsExpired() {
+        // Arrange
+        UUID remote = UUID.randomUUID();
+        UUID old = UUID.randomUUID();
+        tokenVersions.revoked(new TokenRevocation(old, 1,
+                Instant.now().minus(TokenProvider.ACCESS_TOKEN_TTL).minus(Duration.ofMinutes(1))));
+        when(userRepository.findTokenRevocationsAfter(any()))
+                .thenReturn(List.of(new TokenRevocation(remote, 1, Instant.now())));
+
+        // Act
+        tokenVersions.poll();
+
+        // Assert
+        assertTrue(tokenVersions.isRevoked(principal(remote, 0)));
+        assertFalse(tokenVersions.isRevoked(principal(old, 0)), "every token older than that has expired");
+        assertEquals(1.0, meterRegistry.get("auth.tokens.revocations").gauge().value());
+    }
+
+    @Test
+    void testPoll_NextWindowOverlapsPrevious() {
+        // Arrange
+        when(userRepository.findTokenRevocationsAfter(any())).thenReturn(List.of());
+        Instant before = Instant.now();
+
+        // Act
+        tokenVersions.poll();
+        tokenVersions.poll();
+
+        // Assert - first window reaches back a full token lifetime, the second only slightly before the first poll
+        verify(userRepository).findTokenRevocationsAfter(argThat(
+                since -> since.isBefore(before.minus(TokenProvider.ACCESS_TOKEN_TTL).plusSeconds(10))));
+        verify(userRepository).findTokenRevocationsAfter(argThat(
+                since -> since.isAfter(before.minus(Duration.ofMinutes(2))) && since.isBefore(before)));
+    }
+}
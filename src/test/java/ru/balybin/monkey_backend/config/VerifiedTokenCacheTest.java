@@ -0,0 +1,104 @@
+package ru.balybin.monkey_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(true, 100, meterRegistry);
+        verifications = new AtomicInteger();
+    }
+
+    private VerifiedTokenCache.Verified verified(String email, Instant expiresAt) {
+        verifications.incrementAndGet();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null, AuthorityUtils.NO_AUTHORITIES);
+        return new VerifiedTokenCache.Verified(auth, expiresAt);
+    }
+
+    @Test
+    void testSameToken_VerifiedOnce() {
+        // Arrange
+        Instant exp = Instant.now().plusSeconds(3600);
+
+        // Act
+        Authentication first = cache.get("a.b.c", t -> verified("test@example.com", exp));
+        Authentication second = cache.get("a.b.c", t -> verified("test@example.com", exp));
+
+        // Assert
+        assertEquals(1, verifications.get());
+        assertSame(first, second);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.verified")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testDifferentTokens_VerifiedSeparately() {
+        // Arrange
+        Instant exp = Instant.now().plusSeconds(3600);
+
+        // Act
+        Authentication first = cache.get("a.b.c", t -> verified("user1@test.com", exp));
+        Authentication second = cache.get("a.b.d", t -> verified("user2@test.com", exp));
+
+        // Assert
+        assertEquals(2, verifications.get());
+        assertEquals("user1@test.com", first.getName());
+        assertEquals("user2@test.com", second.getName());
+    }
+
+    @Test
+    void testInvalidToken_IsNotCached() {
+        // Act & Assert
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalArgumentException.class, () -> cache.get("bad.token.here", t -> {
+                verifications.incrementAndGet();
+                throw new IllegalArgumentException("bad signature");
+            }));
+        }
+        assertEquals(2, verifications.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testExpiredToken_IsNotReturnedFromCache() {
+        // Arrange
+        Instant alreadyExpired = Instant.now().minusSeconds(1);
+
+        // Act
+        cache.get("a.b.c", t -> verified("test@example.com", alreadyExpired));
+        cache.get("a.b.c", t -> verified("test@example.com", alreadyExpired));
+
+        // Assert
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void testDisabledCache_AlwaysVerifies() {
+        // Arrange
+        VerifiedTokenCache disabled = new VerifiedTokenCache(false, 100, meterRegistry);
+        Instant exp = Instant.now().plusSeconds(3600);
+
+        // Act
+        disabled.get("a.b.c", t -> verified("test@example.com", exp));
+        disabled.get("a.b.c", t -> verified("test@example.com", exp));
+
+        // Assert
+        assertEquals(2, verifications.get());
+    }
+}
@@ -0,0 +1,497 @@
+package ru.balybin.monkey_backend.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.balybin.monkey_backend.DTO.request.IntrospectRequest;
+import ru.balybin.monkey_backend.DTO.request.LoginRequest;
+import ru.balybin.monkey_backend.DTO.request.RefreshRequest;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.request.RevokeRequest;
+import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.model.User;
+import ru.balybin.monkey_backend.repository.RevokedAccessTokenRepository;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сценарии /api/auth/** и JWKS для обоих стеков. WebTestClient работает поверх MockMvc в сервлетном стеке
+ * и напрямую с WebFlux в реактивном; профиль и транзакционность задают наследники
+ * {@link AuthControllerIntegrationTest} и {@link ReactiveAuthControllerIntegrationTest}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureWebTestClient
+abstract class AbstractAuthControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    private String testEmail;
+    private String testPassword;
+
+    @BeforeEach
+    void setUp() {
+        testEmail = "test@example.com";
+        testPassword = "password123";
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testRegister_Integration_Success() throws Exception {
+        // Arrange
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword(testPassword);
+
+        // Act & Assert
+        webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.userId").exists()
+                .jsonPath("$.accessToken").isNotEmpty()
+                .jsonPath("$.refreshToken").isNotEmpty();
+
+        // Verify user was saved in database
+        User savedUser = userRepository.findByEmail(testEmail);
+        assertNotNull(savedUser);
+        assertEquals(testEmail, savedUser.getEmail());
+        assertTrue(passwordEncoder.matches(testPassword, savedUser.getPassword()));
+    }
+
+    @Test
+    void testRegister_Integration_DuplicateEmail() throws Exception {
+        // Arrange - create existing user
+        User existingUser = new User();
+        existingUser.setEmail(testEmail);
+        existingUser.setPassword(passwordEncoder.encode(testPassword));
+        userRepository.save(existingUser);
+
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword("newpassword123");
+
+        // Act & Assert - Change from isInternalServerError() to isBadRequest()
+        webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isBadRequest(); // Changed from isInternalServerError()
+
+        // Verify only one user exists
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void testLogin_Integration_Success() throws Exception {
+        // Arrange - create user
+        User user = new User();
+        user.setEmail(testEmail);
+        user.setPassword(passwordEncoder.encode(testPassword));
+        userRepository.save(user);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(testEmail);
+        loginRequest.setPassword(testPassword);
+
+        // Act & Assert
+        webTestClient.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loginRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.userId").exists()
+                .jsonPath("$.accessToken").isNotEmpty()
+                .jsonPath("$.refreshToken").isNotEmpty();
+    }
+
+    @Test
+    void testLogin_Integration_WrongPassword() throws Exception {
+        // Arrange - create user
+        User user = new User();
+        user.setEmail(testEmail);
+        user.setPassword(passwordEncoder.encode(testPassword));
+        userRepository.save(user);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(testEmail);
+        loginRequest.setPassword("wrongPassword");
+
+        // Act & Assert - Change from isInternalServerError() to isBadRequest()
+        webTestClient.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loginRequest)
+                .exchange()
+                .expectStatus().isBadRequest(); // Changed from isInternalServerError()
+    }
+
+
+    @Test
+    void testLogin_Integration_UserNotFound() throws Exception {
+        // Arrange
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("nonexistent@example.com");
+        loginRequest.setPassword(testPassword);
+
+        // Act & Assert - Change from isInternalServerError() to isBadRequest()
+        webTestClient.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loginRequest)
+                .exchange()
+                .expectStatus().isBadRequest(); // Changed from isInternalServerError()
+    }
+
+    @Test
+    void testRegisterAndLogin_Integration_FullFlow() throws Exception {
+        // Step 1: Register
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword(testPassword);
+
+        webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.accessToken").exists();
+
+        // Step 2: Login with registered credentials
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(testEmail);
+        loginRequest.setPassword(testPassword);
+
+        webTestClient.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loginRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accessToken").exists()
+                .jsonPath("$.refreshToken").exists();
+
+        // Verify user exists
+        User savedUser = userRepository.findByEmail(testEmail);
+        assertNotNull(savedUser);
+        assertEquals(testEmail, savedUser.getEmail());
+    }
+
+    @Test
+    void testRegister_Integration_InvalidEmail() throws Exception {
+        // Arrange
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail("invalid-email");
+        registerRequest.setPassword(testPassword);
+
+        // Act & Assert
+        webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testRegister_Integration_ShortPassword() throws Exception {
+        // Arrange
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword("short"); // Less than 8 characters
+
+        // Act & Assert
+        webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testIntrospect_BatchWithRevocationCheck() {
+        // Arrange
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword(testPassword);
+        AuthResponse registered = webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(registered);
+        IntrospectRequest request = new IntrospectRequest(List.of(registered.getAccessToken(), "garbage"), false);
+
+        // Act & Assert - signature only, results in request order
+        webTestClient.post().uri("/api/auth/introspect")
+                .header("Authorization", "Bearer " + registered.getAccessToken())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.results.length()").isEqualTo(2)
+                .jsonPath("$.results[0].active").isEqualTo(true)
+                .jsonPath("$.results[0].userId").isEqualTo(registered.getUserId().toString())
+                .jsonPath("$.results[0].email").isEqualTo(testEmail)
+                .jsonPath("$.results[0].exp").isNumber()
+                .jsonPath("$.results[1].active").isEqualTo(false)
+                .jsonPath("$.results[1].email").doesNotExist();
+
+        // Act & Assert - a well-signed token of a user that does not exist is revoked on request
+        String orphan = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken("gone@example.com", null), UUID.randomUUID());
+        IntrospectRequest withRevocation = new IntrospectRequest(
+                List.of(registered.getAccessToken(), orphan), true);
+        webTestClient.post().uri("/api/auth/introspect")
+                .header("Authorization", "Bearer " + registered.getAccessToken())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(withRevocation)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.results[0].active").isEqualTo(true)
+                .jsonPath("$.results[1].active").isEqualTo(false);
+    }
+
+    @Test
+    void testIntrospect_RequiresToken() {
+        webTestClient.post().uri("/api/auth/introspect")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new IntrospectRequest(List.of("token"), false))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //отзыв применяется после коммита,откат теста его бы скрыл
+    void testLogoutAll_RevokesIssuedTokens() {
+        // Arrange
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword(testPassword);
+        AuthResponse registered = webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(registered);
+
+        // Act
+        webTestClient.post().uri("/api/auth/logout-all")
+                .header("Authorization", "Bearer " + registered.getAccessToken())
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert - the access token and the refresh token issued before are both dead
+        webTestClient.get().uri("/api/users/profile")
+                .header("Authorization", "Bearer " + registered.getAccessToken())
+                .exchange()
+                .expectStatus().isUnauthorized();
+        webTestClient.post().uri("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshRequest(registered.getRefreshToken()))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // Assert - a new login gets a token of the new version
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(testEmail);
+        loginRequest.setPassword(testPassword);
+        AuthResponse loggedIn = webTestClient.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loginRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(loggedIn);
+        webTestClient.get().uri("/api/users/profile")
+                .header("Authorization", "Bearer " + loggedIn.getAccessToken())
+                .exchange()
+                .expectStatus().isOk();
+
+        // Cleanup - nothing is rolled back here
+        webTestClient.post().uri("/api/auth/logout-all")
+                .header("Authorization", "Bearer " + loggedIn.getAccessToken())
+                .exchange()
+                .expectStatus().isOk();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testLogoutAll_RequiresToken() {
+        webTestClient.post().uri("/api/auth/logout-all")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //отзыв попадает в фильтр после коммита
+    void testRevoke_KillsOneTokenAndKeepsOtherSessions() {
+        // Arrange - two sessions of the same user
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword(testPassword);
+        AuthResponse lost = webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(testEmail);
+        loginRequest.setPassword(testPassword);
+        AuthResponse current = webTestClient.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loginRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(lost);
+        assertNotNull(current);
+
+        // Act
+        webTestClient.post().uri("/api/auth/revoke")
+                .header("Authorization", "Bearer " + current.getAccessToken())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RevokeRequest(lost.getAccessToken()))
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert - only the revoked token is dead
+        webTestClient.get().uri("/api/users/profile")
+                .header("Authorization", "Bearer " + lost.getAccessToken())
+                .exchange()
+                .expectStatus().isUnauthorized();
+        webTestClient.get().uri("/api/users/profile")
+                .header("Authorization", "Bearer " + current.getAccessToken())
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.post().uri("/api/auth/revoke")
+                .header("Authorization", "Bearer " + current.getAccessToken())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RevokeRequest("garbage"))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // Cleanup - nothing is rolled back here
+        webTestClient.post().uri("/api/auth/logout-all")
+                .header("Authorization", "Bearer " + current.getAccessToken())
+                .exchange()
+                .expectStatus().isOk();
+        revokedAccessTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testRevoke_RequiresToken() {
+        webTestClient.post().uri("/api/auth/revoke")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RevokeRequest("token"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testActuator_OnlyHealthIsAnonymous() {
+        // Arrange
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword(testPassword);
+        AuthResponse registered = webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(registered);
+
+        // Act & Assert
+        webTestClient.get().uri("/actuator/health")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/actuator/metrics")
+                .exchange()
+                .expectStatus().value(status -> assertTrue(status == 401 || status == 403));
+        webTestClient.get().uri("/actuator/metrics")
+                .header("Authorization", "Bearer " + registered.getAccessToken())
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void testJwks_IsCacheableAndRevalidatesWithEtag() {
+        // Act
+        String etag = webTestClient.get().uri(JwksController.JWKS_PATH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(JwksController.JWK_SET_JSON)
+                .expectHeader().valueMatches("Cache-Control", ".*max-age=\\d+.*")
+                .expectBody()
+                .jsonPath("$.keys").isArray()
+                .returnResult()
+                .getResponseHeaders().getETag();
+
+        // Assert - a strong ETag, and the same one again gives 304 without a body
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+        webTestClient.get().uri(JwksController.JWKS_PATH)
+                .header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void testJwks_AcceptsPlainJson() {
+        webTestClient.get().uri(JwksController.JWKS_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(JwksController.JWK_SET_JSON)
+                .expectBody()
+                .jsonPath("$.keys").isArray();
+    }
+}
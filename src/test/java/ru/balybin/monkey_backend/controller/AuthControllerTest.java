@@ -11,16 +11,21 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.balybin.monkey_backend.DTO.request.LoginRequest;
+import ru.balybin.monkey_backend.DTO.request.RefreshRequest;
 import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
 import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+import ru.balybin.monkey_backend.config.AuthMetrics;
+import ru.balybin.monkey_backend.config.AuthRateLimits;
 import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.config.TokenVersions;
 import ru.balybin.monkey_backend.config.UserMapper;
+import ru.balybin.monkey_backend.exception.TooManyAttemptsException;
 import ru.balybin.monkey_backend.exception.UserException;
 import ru.balybin.monkey_backend.model.User;
-import ru.balybin.monkey_backend.model.RefreshToken;
 import ru.balybin.monkey_backend.service.UserService;
 import ru.balybin.monkey_backend.service.RefreshTokenService;
 
@@ -50,6 +55,15 @@ class AuthControllerTest {
     @Mock
     private RefreshTokenService refreshTokenService;
 
+    @Mock
+    private TokenVersions tokenVersions;
+
+    @Mock
+    private AuthMetrics authMetrics;
+
+    @Mock
+    private AuthRateLimits rateLimits;
+
     @InjectMocks
     private AuthController authController;
 
@@ -60,7 +74,7 @@ class AuthControllerTest {
     private String testEmail;
     private String testPassword;
     private String testAccess;
-    private RefreshToken testRefresh;
+    private RefreshTokenService.Issued testRefresh;
 
     @BeforeEach
     void setUp() {
@@ -70,7 +84,8 @@ class AuthControllerTest {
         testEmail = "test@example.com";
         testPassword = "password123";
         testAccess = "test.jwt.token";
-        testRefresh = new RefreshToken("refresh.token", UUID.randomUUID(), java.time.Instant.now().plusSeconds(3600));
+        testRefresh = new RefreshTokenService.Issued("refresh.token", UUID.randomUUID(),
+                java.time.Instant.now().plusSeconds(3600));
 
         testUser = new User();
         testUser.setId(UUID.randomUUID());
@@ -87,11 +102,11 @@ class AuthControllerTest {
 
         when(userMapper.toEntity(any(RegisterRequest.class))).thenReturn(testUser);
         when(userService.registerUser(any(User.class))).thenReturn(testUser);
-        when(tokenProvider.generateToken(any(), any())).thenReturn(testAccess);
+        when(tokenProvider.generateToken(any(), any(), anyLong(), anyLong())).thenReturn(testAccess);
         when(refreshTokenService.create(any(UUID.class))).thenReturn(testRefresh);
 
         // Act
-        ResponseEntity<AuthResponse> response = authController.register(registerRequest);
+        ResponseEntity<AuthResponse> response = authController.register(registerRequest, new MockHttpServletRequest());
 
         // Assert
         assertNotNull(response);
@@ -103,7 +118,7 @@ class AuthControllerTest {
 
         verify(userMapper, times(1)).toEntity(any(RegisterRequest.class));
         verify(userService, times(1)).registerUser(any(User.class));
-        verify(tokenProvider, times(1)).generateToken(any(Authentication.class), any(UUID.class));
+        verify(tokenProvider, times(1)).generateToken(any(Authentication.class), any(UUID.class), anyLong(), anyLong());
     }
 
     @Test
@@ -115,7 +130,7 @@ class AuthControllerTest {
 
         when(userMapper.toEntity(any(RegisterRequest.class))).thenReturn(testUser);
         when(userService.registerUser(any(User.class))).thenReturn(testUser);
-        when(tokenProvider.generateToken(any(), any())).thenReturn(testAccess);
+        when(tokenProvider.generateToken(any(), any(), anyLong(), anyLong())).thenReturn(testAccess);
         when(refreshTokenService.create(any(UUID.class))).thenReturn(testRefresh);
 
         // Act & Assert
@@ -137,11 +152,11 @@ class AuthControllerTest {
 
         when(userService.findUserByEmail(testEmail)).thenReturn(testUser);
         when(passwordEncoder.matches(testPassword, testUser.getPassword())).thenReturn(true);
-        when(tokenProvider.generateToken(any(), any())).thenReturn(testAccess);
+        when(tokenProvider.generateToken(any(), any(), anyLong(), anyLong())).thenReturn(testAccess);
         when(refreshTokenService.create(any(UUID.class))).thenReturn(testRefresh);
 
         // Act
-        ResponseEntity<AuthResponse> response = authController.login(loginRequest);
+        ResponseEntity<AuthResponse> response = authController.login(loginRequest, new MockHttpServletRequest());
 
         // Assert
         assertNotNull(response);
@@ -153,7 +168,7 @@ class AuthControllerTest {
 
         verify(userService, times(1)).findUserByEmail(testEmail);
         verify(passwordEncoder, times(1)).matches(testPassword, testUser.getPassword());
-        verify(tokenProvider, times(1)).generateToken(any(Authentication.class), any(UUID.class));
+        verify(tokenProvider, times(1)).generateToken(any(Authentication.class), any(UUID.class), anyLong(), anyLong());
     }
 
     @Test
@@ -168,13 +183,29 @@ class AuthControllerTest {
 
         // Act & Assert
         UserException exception = assertThrows(UserException.class, () -> {
-            authController.login(loginRequest);
+            authController.login(loginRequest, new MockHttpServletRequest());
         });
 
         assertEquals("Wrong password", exception.getMessage());
         verify(userService, times(1)).findUserByEmail(testEmail);
         verify(passwordEncoder, times(1)).matches("wrongPassword", testUser.getPassword());
-        verify(tokenProvider, never()).generateToken(any(Authentication.class), any(UUID.class));
+        verify(tokenProvider, never()).generateToken(any(Authentication.class), any(UUID.class), anyLong(), anyLong());
+    }
+
+    @Test
+    void testLogin_RateLimitedBeforeDatabaseAndHash() {
+        // Arrange
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(testEmail);
+        loginRequest.setPassword("guess");
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setRemoteAddr("203.0.113.7");
+        doThrow(new TooManyAttemptsException("Too many attempts, try again later", 12))
+                .when(rateLimits).checkLogin(testEmail, "203.0.113.7");
+
+        // Act & Assert
+        assertThrows(TooManyAttemptsException.class, () -> authController.login(loginRequest, httpRequest));
+        verifyNoInteractions(userService, passwordEncoder, tokenProvider);
     }
 
     @Test
@@ -186,7 +217,8 @@ class AuthControllerTest {
 
         when(userService.findUserByEmail(testEmail)).thenReturn(testUser);
         when(passwordEncoder.matches(testPassword, testUser.getPassword())).thenReturn(true);
-        when(tokenProvider.generateToken(any(Authentication.class), any(UUID.class))).thenReturn(testAccess);
+        when(tokenProvider.generateToken(any(Authentication.class), any(UUID.class), anyLong(), anyLong()))
+                .thenReturn(testAccess);
         when(refreshTokenService.create(any(UUID.class))).thenReturn(testRefresh);
 
         // Act & Assert
@@ -198,5 +230,27 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.accessToken").value(testAccess))
                 .andExpect(jsonPath("$.refreshToken").exists());
     }
-}
 
+    @Test
+    void testRefresh_RotatesTokenInSingleCall() {
+        // Arrange
+        RefreshTokenService.Issued rotated = new RefreshTokenService.Issued("rotated.token", testUser.getId(),
+                java.time.Instant.now().plusSeconds(3600));
+        when(refreshTokenService.rotate("refresh.token")).thenReturn(rotated);
+        when(userService.findUserById(testUser.getId())).thenReturn(testUser);
+        when(tokenProvider.generateToken(any(Authentication.class), any(UUID.class), anyLong(), anyLong()))
+                .thenReturn(testAccess);
+
+        // Act
+        ResponseEntity<AuthResponse> response = authController.refresh(new RefreshRequest("refresh.token"));
+
+        // Assert
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(testUser.getId(), response.getBody().getUserId());
+        assertEquals(testAccess, response.getBody().getAccessToken());
+        assertEquals("rotated.token", response.getBody().getRefreshToken());
+        verify(refreshTokenService, times(1)).rotate("refresh.token");
+        verify(refreshTokenService, never()).delete(any());
+        verify(refreshTokenService, never()).create(any());
+    }
+}
@@ -0,0 +1,108 @@
+package ru.balybin.monkey_backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.annotation.Transactional;
+import ru.balybin.monkey_backend.DTO.request.LoginRequest;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "auth.rate-limit.enabled=true",
+        "auth.rate-limit.login.per-email=3/1m",
+        "auth.rate-limit.login.per-address=5/1m"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class AuthRateLimitIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String login(String email, String password) throws Exception {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(email);
+        request.setPassword(password);
+        return objectMapper.writeValueAsString(request);
+    }
+
+    private long hashes() {
+        return meterRegistry.get("password.hash.duration").tag("operation", "matches").timer().count();
+    }
+
+    @Test
+    void testLogin_GuessingOneAccountHitsLimitWithoutHashing() throws Exception {
+        // Arrange
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RegisterRequest("victim@example.com", "password123"))))
+                .andExpect(status().isCreated());
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/auth/login").with(remote("192.0.2." + i))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(login("victim@example.com", "guess" + i)))
+                    .andExpect(status().isBadRequest());
+        }
+        long hashesBefore = hashes();
+
+        // Act - another address, same account in different case
+        String retryAfter = mockMvc.perform(post("/api/auth/login").with(remote("192.0.2.99"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login("Victim@Example.com", "password123")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error").value("TOO_MANY_ATTEMPTS"))
+                .andReturn().getResponse().getHeader(HttpHeaders.RETRY_AFTER);
+
+        // Assert
+        assertEquals("20", retryAfter);
+        assertEquals(hashesBefore, hashes(), "a refused attempt costs no BCrypt");
+    }
+
+    @Test
+    void testLogin_SprayingFromOneAddressHitsLimit() throws Exception {
+        // Act - a different account each time, one client address
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/auth/login").with(remote("198.51.100.7"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(login("user" + i + "@example.com", "password123")))
+                    .andExpect(status().isBadRequest());
+        }
+
+        // Assert
+        mockMvc.perform(post("/api/auth/login").with(remote("198.51.100.7"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login("user5@example.com", "password123")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(post("/api/auth/login").with(remote("198.51.100.8"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login("user5@example.com", "password123")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static RequestPostProcessor remote(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package ru.balybin.monkey_backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class JfrEventsIntegrationTest {
+
+    private static final String PREFIX = "ru.balybin.monkey_backend.";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordingWithBundledProfile_CoversEveryStage() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("auth.jfr");
+
+        // Act - the same profile an operator passes to jcmd JFR.start
+        try (Recording recording = new Recording(Configuration.create(
+                Path.of("src/main/resources/jfr/auth.jfc")))) {
+            recording.start();
+            String body = mockMvc.perform(post("/api/auth/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new RegisterRequest("jfr@example.com", "password123"))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            String accessToken = objectMapper.readValue(body, AuthResponse.class).getAccessToken();
+            mockMvc.perform(get("/api/users/profile").header("Authorization", "Bearer " + accessToken))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/users/profile").header("Authorization", "Bearer " + accessToken))
+                    .andExpect(status().isOk());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // Assert
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith(PREFIX))
+                .toList();
+        Set<String> stages = events.stream()
+                .map(event -> event.getEventType().getName().substring(PREFIX.length()))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("TokenVerification", "TokenIssue", "PasswordHash", "RepositoryCall"), stages);
+
+        List<RecordedEvent> verifications = events.stream()
+                .filter(event -> event.getEventType().getName().endsWith("TokenVerification"))
+                .toList();
+        assertEquals(2, verifications.size());
+        assertFalse(verifications.get(0).getBoolean("cached"));
+        assertTrue(verifications.get(1).getBoolean("cached"));
+        assertTrue(verifications.stream().allMatch(event -> "valid".equals(event.getString("outcome"))));
+
+        assertTrue(events.stream()
+                .filter(event -> event.getEventType().getName().endsWith("RepositoryCall"))
+                .anyMatch(event -> "UserRepository".equals(event.getString("repository"))
+                && "existsByEmail".equals(event.getString("method"))
+                && "success".equals(event.getString("outcome"))));
+    }
+}
@@ -0,0 +1,53 @@
+package ru.balybin.monkey_backend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.TestSocketUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Actuator на отдельном порту: Prometheus снимает метрики без токена, на публичном порту аноним получает отказ
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class ManagementPortIntegrationTest {
+
+    private static final int MANAGEMENT_PORT = TestSocketUtils.findAvailableTcpPort();
+
+    @DynamicPropertySource
+    static void managementPort(DynamicPropertyRegistry registry) {
+        registry.add("management.server.port", () -> MANAGEMENT_PORT);
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void testScrape_OnManagementPort_NeedsNoToken() {
+        // Act
+        ResponseEntity<String> scrape = restTemplate.getForEntity(
+                "http://localhost:" + MANAGEMENT_PORT + "/actuator/prometheus", String.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        assertNotNull(scrape.getBody());
+        assertTrue(scrape.getBody().contains("auth_concurrency_limit"));
+    }
+
+    @Test
+    void testScrape_OnPublicPort_IsRejected() {
+        // Act - anonymous requests to /actuator/** on the API port are still rejected
+        ResponseEntity<String> scrape = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // Assert
+        assertTrue(scrape.getStatusCode().is4xxClientError(), scrape.getStatusCode().toString());
+    }
+}
@@ -0,0 +1,82 @@
+package ru.balybin.monkey_backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.balybin.monkey_backend.DTO.request.LoginRequest;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Без @AutoConfigureObservability тестовый контекст отключает экспорт метрик и /actuator/prometheus
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@Transactional
+class PrometheusEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testScrape_ExposesHotPathMetricsWithHistograms() throws Exception {
+        // Arrange - one pass through register, a failed login and an authenticated request
+        String body = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RegisterRequest("metrics@example.com", "password123"))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        AuthResponse registered = objectMapper.readValue(body, AuthResponse.class);
+        LoginRequest wrongPassword = new LoginRequest();
+        wrongPassword.setEmail("metrics@example.com");
+        wrongPassword.setPassword("wrong-password");
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(wrongPassword)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users/profile")
+                        .header("Authorization", "Bearer " + registered.getAccessToken()))
+                .andExpect(status().isOk());
+
+        // Act
+        String scrape = mockMvc.perform(get("/actuator/prometheus")
+                        .header("Authorization", "Bearer " + registered.getAccessToken()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Assert - outcomes as low-cardinality tags, timers with buckets for histogram_quantile
+        assertTrue(scrape.contains("auth_operations_total{operation=\"register\",outcome=\"success\"} 1.0"), scrape);
+        assertTrue(scrape.contains("auth_operations_total{operation=\"login\",outcome=\"rejected\"} 1.0"));
+        assertTrue(scrape.contains("auth_jwt_requests_total{outcome=\"valid\"}"));
+        assertTrue(scrape.contains("auth_token_issue_seconds_bucket"));
+        assertTrue(scrape.contains("auth_token_verify_seconds_bucket{outcome=\"valid\""));
+        assertTrue(scrape.contains("password_hash_duration_seconds_bucket{operation=\"encode\""));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{exception=\"None\","
+                + "method=\"existsByEmail\",repository=\"UserRepository\""));
+        assertTrue(scrape.contains("repository=\"RefreshTokenRepository\""));
+        assertTrue(scrape.contains("auth_concurrency_limit{endpoint=\"login\"}"));
+        assertTrue(scrape.contains("auth_concurrency_rejected_total{endpoint=\"register\"} 0.0"));
+        assertFalse(scrape.contains("metrics@example.com"), "no user data in tags");
+    }
+
+    @Test
+    void testScrape_AnonymousOnPublicPort_IsRejected() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,11 @@
+package ru.balybin.monkey_backend.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Те же сценарии на стеке WebFlux + R2DBC. Без тестовой транзакции: запросы идут через R2DBC
+ * и должны видеть закоммиченные данные, очистка - в {@code setUp()} базового класса.
+ */
+@ActiveProfiles({"reactive", "test"})
+class ReactiveAuthControllerIntegrationTest extends AbstractAuthControllerIntegrationTest {
+}
@@ -0,0 +1,177 @@
+package ru.balybin.monkey_backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
+import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.model.User;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class UserControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    private TokenProvider tokenProvider;
+
+    private String testEmail;
+    private AuthResponse registered;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testEmail = "test@example.com";
+        userRepository.deleteAll();
+
+        RegisterRequest registerRequest = new RegisterRequest(testEmail, "password123");
+        String response = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        registered = objectMapper.readValue(response, AuthResponse.class);
+        clearInvocations(tokenProvider);
+    }
+
+    @Test
+    void testGetProfile_VerifiesSignatureOncePerRequest() throws Exception {
+        // Act
+        mockMvc.perform(get("/api/users/profile")
+                        .header("Authorization", "Bearer " + registered.getAccessToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(registered.getUserId().toString()))
+                .andExpect(jsonPath("$.email").value(testEmail));
+
+        // Assert - one verification in the filter, none in the controller or service
+        verify(tokenProvider, times(1)).verify(anyString());
+        verify(tokenProvider, never()).getEmailFromToken(anyString());
+        verify(tokenProvider, never()).getUserIdFromToken(anyString());
+    }
+
+    @Test
+    void testGetProfile_RepeatedRequestsReuseVerifiedToken() throws Exception {
+        // Act
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/users/profile")
+                            .header("Authorization", "Bearer " + registered.getAccessToken()))
+                    .andExpect(status().isOk());
+        }
+
+        // Assert - only the first request pays for signature verification
+        verify(tokenProvider, times(1)).verify(anyString());
+    }
+
+    @Test
+    void testGetProfile_InvalidToken_ReturnsUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/users/profile")
+                        .header("Authorization", "Bearer invalid.token.here"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testGetProfile_AfterEmailChange_OldTokenSeesNewEmail() throws Exception {
+        // Arrange
+        String newEmail = "changed@example.com";
+        mockMvc.perform(put("/api/users/{userId}", registered.getUserId())
+                        .header("Authorization", "Bearer " + registered.getAccessToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateProfileRequest(newEmail))))
+                .andExpect(status().isOk());
+
+        // Act & Assert - the token still carries the old email, so the profile comes from the database
+        mockMvc.perform(get("/api/users/profile")
+                        .header("Authorization", "Bearer " + registered.getAccessToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value(newEmail));
+    }
+
+    @Test
+    void testUpdateUser_UnchangedOrBlankEmail_KeepsEmail() throws Exception {
+        // Act & Assert - the same address and a blank one both leave the email as it was
+        for (String email : new String[]{testEmail, ""}) {
+            mockMvc.perform(put("/api/users/{userId}", registered.getUserId())
+                            .header("Authorization", "Bearer " + registered.getAccessToken())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new UpdateProfileRequest(email))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.email").value(testEmail));
+        }
+        mockMvc.perform(get("/api/users/profile")
+                        .header("Authorization", "Bearer " + registered.getAccessToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value(testEmail));
+    }
+
+    @Test
+    void testBatch_ReportsMissingIdsAndDedupes() throws Exception {
+        // Arrange
+        UUID missing = UUID.randomUUID();
+        List<UUID> ids = List.of(registered.getUserId(), missing, registered.getUserId());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/batch")
+                        .header("Authorization", "Bearer " + registered.getAccessToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(registered.getUserId().toString()))
+                .andExpect(header().string(UserController.MISSING_IDS_HEADER, missing.toString()));
+    }
+
+    @Test
+    void testSearchDatabaseFallback_KeysetPages() {
+        // Arrange
+        userRepository.save(new User(null, "testy@example.com", "encoded"));
+        userRepository.save(new User(null, "a.test@example.com", "encoded"));
+        UUID first = new UUID(0, 0);
+
+        // Act
+        List<UserInfoResponse> page1 = userRepository.searchByPrefix("test%", "", first, PageRequest.of(0, 1));
+        List<UserInfoResponse> page2 = userRepository.searchByPrefix("test%", testEmail, page1.get(0).getId(),
+                PageRequest.of(0, 5));
+        List<UserInfoResponse> substring = userRepository.searchBySubstring("%test%", "test%", "", first,
+                PageRequest.of(0, 5));
+
+        // Assert
+        assertEquals(testEmail, page1.get(0).getEmail());
+        assertEquals(List.of("testy@example.com"), page2.stream().map(UserInfoResponse::getEmail).toList());
+        assertEquals(List.of("a.test@example.com"), substring.stream().map(UserInfoResponse::getEmail).toList());
+    }
+}
@@ -0,0 +1,278 @@
+package ru.balybin.monkey_backend.integration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.balybin.monkey_backend.DTO.request.LoginRequest;
+import ru.balybin.monkey_backend.DTO.request.RegisterRequest;
+import ru.balybin.monkey_backend.DTO.response.AuthResponse;
+import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.controller.UserController;
+import ru.balybin.monkey_backend.model.User;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Интеграционные тесты для проверки совместимости JWT токенов
+ * между authentication service и chat-microservice.
+ * Гоняются на сервлетном ({@link AuthServiceCrossServiceTest}) и реактивном
+ * ({@link ReactiveAuthServiceCrossServiceTest}) стеках.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureWebTestClient
+abstract class AbstractAuthServiceCrossServiceTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    private String testEmail;
+    private String testPassword;
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testEmail = "test@example.com";
+        testPassword = "password123";
+        userRepository.deleteAll();
+
+        // Регистрируем пользователя
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(testEmail);
+        registerRequest.setPassword(testPassword);
+
+        AuthResponse authResponse = webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        jwtToken = authResponse.getAccessToken();
+    }
+
+    @Test
+    void testJwtTokenStructure_CompatibleWithChatMicroservice() {
+        // Arrange & Act
+        assertNotNull(jwtToken);
+
+        // Assert - проверяем, что токен содержит email (как ожидает chat-microservice)
+        String emailFromToken = tokenProvider.getEmailFromToken(jwtToken);
+        assertNotNull(emailFromToken);
+        assertEquals(testEmail, emailFromToken);
+    }
+
+    @Test
+    void testTokenCanBeValidated_ByChatMicroservice() {
+        // Arrange
+        // Chat-microservice использует тот же SECRET_KEY для валидации
+
+        // Act - извлекаем email из токена (как это делает chat-microservice)
+        String email = tokenProvider.getEmailFromToken(jwtToken);
+
+        // Assert
+        assertNotNull(email);
+        assertEquals(testEmail, email);
+    }
+
+    @Test
+    void testTokenWithBearerPrefix_IsHandledCorrectly() {
+        // Arrange
+        String tokenWithBearer = "Bearer " + jwtToken;
+
+        // Act
+        String email = tokenProvider.getEmailFromToken(tokenWithBearer);
+
+        // Assert
+        assertEquals(testEmail, email);
+    }
+
+    @Test
+    void testUserInfoResponse_MatchesActualModel() throws Exception {
+        // Arrange
+        User user = userRepository.findByEmail(testEmail);
+        assertNotNull(user, "User should be found in repository");
+
+        // Act & Assert - проверяем структуру ответа согласно фактической модели User
+        webTestClient.get().uri("/api/users/{userId}", user.getId())
+                .header("Authorization", "Bearer " + jwtToken)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(user.getId().toString())
+                .jsonPath("$.email").isEqualTo(testEmail);
+        // Note: password исключен из JSON благодаря @JsonIgnore
+    }
+
+    @Test
+    void testFullFlow_RegisterLoginUseToken() throws Exception {
+        // Step 1: Register
+        String newUserEmail = "newuser@example.com";
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setEmail(newUserEmail);
+        registerRequest.setPassword("password123");
+
+        webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest)
+                .exchange()
+                .expectStatus().isCreated();
+
+        // Step 2: Login
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(newUserEmail);
+        loginRequest.setPassword("password123");
+
+        AuthResponse loginAuthResponse = webTestClient.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loginRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthResponse.class)
+                .returnResult()
+                .getResponseBody();
+        String loginToken = loginAuthResponse.getAccessToken();
+
+        // Step 3: Use token to get user info
+        User user = userRepository.findByEmail(newUserEmail);
+        assertNotNull(user, "User should be found after registration");
+
+        webTestClient.get().uri("/api/users/{userId}", user.getId())
+                .header("Authorization", "Bearer " + loginToken)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.email").isEqualTo(newUserEmail)
+                .jsonPath("$.id").isEqualTo(user.getId().toString());
+    }
+
+    @Test
+    void testBatchRequest_WithMultipleValidTokens() throws Exception {
+        // Arrange - создаем несколько пользователей
+        User user1 = userRepository.findByEmail(testEmail);
+        assertNotNull(user1, "First user should exist");
+
+        // Create second user
+        String secondUserEmail = "user2@example.com";
+        RegisterRequest registerRequest2 = new RegisterRequest();
+        registerRequest2.setEmail(secondUserEmail);
+        registerRequest2.setPassword("password123");
+
+        webTestClient.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(registerRequest2)
+                .exchange()
+                .expectStatus().isCreated();
+
+        User user2 = userRepository.findByEmail(secondUserEmail);
+        assertNotNull(user2, "Second user should exist");
+
+        // Act & Assert - симулируем batch запрос от chat-microservice
+        List<String> userIds = Arrays.asList(
+                user1.getId().toString(),
+                user2.getId().toString()
+        );
+
+        webTestClient.post().uri("/api/users/batch")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userIds)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$").isArray()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(user1.getId().toString())
+                .jsonPath("$[0].email").isEqualTo(testEmail)
+                .jsonPath("$[1].id").isEqualTo(user2.getId().toString())
+                .jsonPath("$[1].email").isEqualTo(secondUserEmail);
+    }
+
+    @Test
+    void testGetUsersByIds_ManyMissingIds_HeaderStaysSmall() {
+        // Arrange - several hundred unknown ids would make a ~15KB header if listed in full
+        User user = userRepository.findByEmail(testEmail);
+        List<UUID> userIds = new ArrayList<>();
+        userIds.add(user.getId());
+        for (int i = 0; i < 400; i++) {
+            userIds.add(UUID.randomUUID());
+        }
+
+        // Act & Assert - the array body is unchanged, the header is capped and marked as truncated
+        webTestClient.post().uri("/api/users/batch")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userIds)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(UserController.MISSING_IDS_TRUNCATED_HEADER, "true")
+                .expectHeader().value(UserController.MISSING_IDS_HEADER, header -> {
+                    assertTrue(header.length() <= 2048, "header length " + header.length());
+                    assertTrue(header.startsWith(userIds.get(1) + ","));
+                })
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(user.getId().toString());
+
+        // Act & Assert - the full list comes in the body on request
+        webTestClient.post().uri("/api/users/batch?includeMissing=true")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userIds)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(UserController.MISSING_IDS_HEADER)
+                .expectBody()
+                .jsonPath("$.users.length()").isEqualTo(1)
+                .jsonPath("$.missingIds.length()").isEqualTo(400)
+                .jsonPath("$.missingIds[399]").isEqualTo(userIds.get(400).toString());
+    }
+
+    // Additional test to verify token contains necessary claims
+    @Test
+    void testJwtTokenContainsRequiredClaims() {
+        // Act
+        String email = tokenProvider.getEmailFromToken(jwtToken);
+
+        // Assert
+        assertNotNull(email);
+        assertEquals(testEmail, email);
+
+        // You might want to add more claim validations here if needed
+        // For example, if your chat-microservice needs specific claims
+    }
+
+    @Test
+    void testInvalidToken_ReturnsUnauthorized() throws Exception {
+        // Arrange
+        String invalidToken = "invalid.token.here";
+        User user = userRepository.findByEmail(testEmail);
+
+        // Act & Assert
+        webTestClient.get().uri("/api/users/{userId}", user.getId())
+                .header("Authorization", "Bearer " + invalidToken)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+}
\ No newline at end of file
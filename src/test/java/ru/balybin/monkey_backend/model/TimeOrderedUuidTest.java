@@ -0,0 +1,92 @@
+package ru.balybin.monkey_backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidTest {
+
+    @Test
+    void testNext_IsVersion7WithRfcVariant() {
+        // Act
+        UUID uuid = TimeOrderedUuid.next();
+
+        // Assert
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(UUID.fromString(uuid.toString()), uuid);
+    }
+
+    @Test
+    void testNext_CarriesCreationTime() {
+        // Arrange
+        long before = System.currentTimeMillis();
+
+        // Act
+        UUID uuid = TimeOrderedUuid.next();
+
+        // Assert
+        long timestamp = TimeOrderedUuid.timestampMillis(uuid);
+        //счётчик может увести время вперёд,но не назад
+        assertTrue(timestamp >= before, "timestamp " + timestamp + " is before " + before);
+        assertTrue(timestamp <= System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    void testNext_StrictlyIncreasingInTextAndByteOrder() {
+        // Arrange
+        List<UUID> generated = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            generated.add(TimeOrderedUuid.next());
+        }
+
+        // Assert
+        for (int i = 1; i < generated.size(); i++) {
+            UUID previous = generated.get(i - 1);
+            UUID current = generated.get(i);
+            //Postgres и H2 сравнивают uuid как беззнаковые байты,то же самое даёт сравнение строк
+            assertTrue(previous.toString().compareTo(current.toString()) < 0, previous + " >= " + current);
+            assertTrue(Long.compareUnsigned(previous.getMostSignificantBits(), current.getMostSignificantBits()) < 0);
+        }
+    }
+
+    @Test
+    void testNext_UniqueAcrossThreads() throws Exception {
+        // Arrange
+        int threads = 8;
+        int perThread = 20_000;
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        seen.add(TimeOrderedUuid.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(threads * perThread, seen.size());
+    }
+}
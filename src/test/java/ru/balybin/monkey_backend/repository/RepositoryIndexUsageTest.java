@@ -0,0 +1,165 @@
+package ru.balybin.monkey_backend.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Каждый запрос репозиториев из горячих путей должен идти по индексу из миграций. Перехватываем SQL,
+ * который на самом деле генерирует Hibernate, и смотрим его план через EXPLAIN в H2.
+ * Поиск по LOWER(email) LIKE здесь не проверяется: выражение индексирует только миграция для Postgres.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.balybin.monkey_backend.repository.RepositoryIndexUsageTest$SqlCapture")
+@ActiveProfiles("test")
+class RepositoryIndexUsageTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        SqlCapture.drain();
+    }
+
+    @Test
+    void testUserQueries_UseIndexes() {
+        UUID id = UUID.randomUUID();
+        assertIndexed("findByEmail", () -> userRepository.findByEmail("a@example.com"));
+        assertIndexed("existsByEmail", () -> userRepository.existsByEmail("a@example.com"));
+        assertIndexed("findById", () -> userRepository.findById(id));
+        assertIndexed("findByIdIn", () -> userRepository.findByIdIn(List.of(id, UUID.randomUUID())));
+        assertIndexed("findProfileVersionById", () -> userRepository.findProfileVersionById(id));
+        assertIndexed("findSearchEntriesAfter",
+                () -> userRepository.findSearchEntriesAfter(id, PageRequest.of(0, 10)));
+        assertIndexed("revokeTokens", () -> transactionTemplate.executeWithoutResult(
+                status -> userRepository.revokeTokens(id, Instant.now())));
+        assertIndexed("findTokenVersionById", () -> userRepository.findTokenVersionById(id));
+        assertIndexed("findTokenRevocationsAfter", () -> userRepository.findTokenRevocationsAfter(Instant.now()));
+    }
+
+    @Test
+    void testRefreshTokenQueries_UseIndexes() {
+        UUID userId = UUID.randomUUID();
+        assertIndexed("findByToken", () -> refreshTokenRepository.findByToken("token"));
+        assertIndexed("findByTokenForUpdate", () -> transactionTemplate.executeWithoutResult(
+                status -> refreshTokenRepository.findByTokenForUpdate("token")));
+        assertIndexed("deleteByToken", () -> transactionTemplate.executeWithoutResult(
+                status -> refreshTokenRepository.deleteByToken("token")));
+        assertIndexed("deleteAllByUserId", () -> transactionTemplate.executeWithoutResult(
+                status -> refreshTokenRepository.deleteAllByUserId(userId)));
+        assertIndexed("advanceGeneration", () -> transactionTemplate.executeWithoutResult(
+                status -> refreshTokenRepository.advanceGeneration(UUID.randomUUID(), 0, Instant.now())));
+        assertIndexed("deleteFamily", () -> transactionTemplate.executeWithoutResult(
+                status -> refreshTokenRepository.deleteFamily(UUID.randomUUID())));
+        assertIndexed("findExpiredIds",
+                () -> refreshTokenRepository.findExpiredIds(Instant.now(), PageRequest.of(0, 10)));
+        assertIndexed("deleteByIdIn", () -> transactionTemplate.executeWithoutResult(
+                status -> refreshTokenRepository.deleteByIdIn(List.of(UUID.randomUUID()))));
+    }
+
+    @Test
+    void testRevokedAccessTokenQueries_UseIndexes() {
+        assertIndexed("existsById", () -> revokedAccessTokenRepository.existsById(UUID.randomUUID()));
+        assertIndexed("findRevokedAfter", () -> revokedAccessTokenRepository.findRevokedAfter(Instant.now()));
+        assertIndexed("deleteExpired", () -> transactionTemplate.executeWithoutResult(
+                status -> revokedAccessTokenRepository.deleteExpired(Instant.now())));
+    }
+
+    @Test
+    void testSchedulerLeaseQueries_UseIndexes() {
+        Instant now = Instant.now();
+        assertIndexed("tryAcquire", () -> transactionTemplate.executeWithoutResult(
+                status -> leaseRepository.tryAcquire("task", "owner", now, now.plusSeconds(60))));
+        assertIndexed("release", () -> transactionTemplate.executeWithoutResult(
+                status -> leaseRepository.release("task", "owner", now)));
+    }
+
+    private void assertIndexed(String query, Runnable call) {
+        SqlCapture.start();
+        List<String> statements;
+        try {
+            call.run();
+        } finally {
+            statements = SqlCapture.drain();
+        }
+        assertFalse(statements.isEmpty(), query + " issued no SQL");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains(".tableScan"), query + " scans the whole table: " + plan);
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                //план в H2 зависит от формы условия,а не от значений параметров
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setNull(i, Types.NULL);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+
+    /** Собирает SQL только из потока теста и только между start() и drain(). */
+    public static class SqlCapture implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        static void start() {
+            CAPTURED.set(new ArrayList<>());
+        }
+
+        static List<String> drain() {
+            List<String> captured = CAPTURED.get();
+            CAPTURED.remove();
+            return captured != null ? captured : List.of();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> captured = CAPTURED.get();
+            if (captured != null) {
+                captured.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.balybin.monkey_backend.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * База, созданная до миграций через ddl-auto=update, помечается версией 1 (baseline-on-migrate) и получает только
+ * последующие миграции. После них её схема должна совпадать с той, что миграции строят с нуля: её проверяет
+ * ddl-auto=validate во всех остальных тестах.
+ */
+class SchemaMigrationTest {
+
+    @Test
+    void testMigrate_PreFlywayDatabase_MatchesFreshSchema() throws SQLException {
+        // Arrange - the schema ddl-auto=update built from the original User and RefreshToken entities
+        String upgraded = "jdbc:h2:mem:pre-flyway-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        String fresh = "jdbc:h2:mem:fresh-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        UUID userId = UUID.randomUUID();
+        try (Connection connection = DriverManager.getConnection(upgraded, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id UUID NOT NULL, email VARCHAR(255) NOT NULL, "
+                    + "password VARCHAR(255) NOT NULL, PRIMARY KEY (id), UNIQUE (email))");
+            statement.execute("CREATE TABLE refresh_tokens (id UUID NOT NULL, token VARCHAR(255) NOT NULL, "
+                    + "user_id UUID NOT NULL, expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL, PRIMARY KEY (id), "
+                    + "UNIQUE (token))");
+            statement.execute("INSERT INTO users (id, email, password) VALUES ('" + userId
+                    + "', 'old@example.com', 'encodedPassword')");
+        }
+
+        // Act
+        migrate(upgraded);
+        migrate(fresh);
+
+        // Assert - same columns as a fresh database, existing rows get the defaults
+        for (String table : new String[]{"USERS", "REFRESH_TOKENS", "REVOKED_ACCESS_TOKENS", "SCHEDULER_LEASES"}) {
+            assertEquals(columns(fresh, table), columns(upgraded, table), table);
+        }
+        try (Connection connection = DriverManager.getConnection(upgraded, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery(
+                     "SELECT profile_version, token_version FROM users WHERE id = '" + userId + "'")) {
+            assertTrue(row.next());
+            assertEquals(0L, row.getLong("profile_version"));
+            assertEquals(0L, row.getLong("token_version"));
+        }
+    }
+
+    //те же настройки,что в application.properties
+    private static void migrate(String url) {
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private static Map<String, String> columns(String url, String table) throws SQLException {
+        Map<String, String> columns = new TreeMap<>();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT column_name, data_type, is_nullable "
+                     + "FROM information_schema.columns WHERE table_name = '" + table + "'")) {
+            while (rows.next()) {
+                columns.put(rows.getString(1), rows.getString(2) + " " + rows.getString(3));
+            }
+        }
+        assertFalse(columns.isEmpty(), table + " is missing");
+        return columns;
+    }
+}
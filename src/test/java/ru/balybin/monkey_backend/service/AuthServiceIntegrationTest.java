@@ -6,11 +6,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
 import ru.balybin.monkey_backend.exception.UserException;
 import ru.balybin.monkey_backend.model.User;
 import ru.balybin.monkey_backend.repository.UserRepository;
 
+import java.time.Instant;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +34,9 @@ class AuthServiceIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private String testEmail;
     private String testPassword;
 
@@ -172,5 +180,29 @@ class AuthServiceIntegrationTest {
         assertTrue(encodedPassword.startsWith("$2a$") || encodedPassword.startsWith("$2b$")); // BCrypt format
         assertTrue(passwordEncoder.matches(testPassword, encodedPassword));
     }
-}
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //кэш каталога работает только вне транзакции
+    void testUpdateUser_StaleCachedCopy_KeepsTokenVersion() {
+        // Arrange - node A caches the user, then logout-all on node B bumps token_version behind its back
+        User user = new User();
+        user.setEmail("cache-race@example.com");
+        user.setPassword(passwordEncoder.encode(testPassword));
+        UUID id = userRepository.save(user).getId();
+        assertEquals(0L, userService.findUserById(id).getTokenVersion());
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> userRepository.revokeTokens(id, Instant.now()));
+
+        try {
+            // Act - profile update on node A while the cached copy still says 0
+            userService.updateUser(id, new UpdateProfileRequest("cache-race-new@example.com"));
+
+            // Assert - the revocation survives, only email and profile version changed
+            assertEquals(1L, userRepository.findTokenVersionById(id));
+            assertEquals(1L, userRepository.findProfileVersionById(id));
+            assertEquals("cache-race-new@example.com", userService.findUserById(id).getEmail());
+        } finally {
+            userRepository.deleteAll();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ru.balybin.monkey_backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.balybin.monkey_backend.model.RefreshToken;
+import ru.balybin.monkey_backend.model.RevokedAccessToken;
+import ru.balybin.monkey_backend.model.SchedulerLease;
+import ru.balybin.monkey_backend.repository.RefreshTokenRepository;
+import ru.balybin.monkey_backend.repository.RevokedAccessTokenRepository;
+import ru.balybin.monkey_backend.repository.SchedulerLeaseRepository;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Без @Transactional: каждая пачка чистки коммитится в своей транзакции
+@SpringBootTest(properties = {
+        "auth.refresh.purge.batch-size=2",
+        "auth.refresh.purge.pause-millis=0"
+})
+@ActiveProfiles("test")
+class RefreshTokenPurgerIntegrationTest {
+
+    @Autowired
+    private RefreshTokenPurger purger;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+        revokedAccessTokenRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    void testPurge_DeletesOnlyExpiredInBatches() {
+        // Arrange - five expired tokens take three batches of two
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            save(now.minus(i + 1, ChronoUnit.DAYS));
+        }
+        RefreshToken live = save(now.plus(1, ChronoUnit.DAYS));
+        double purgedBefore = meterRegistry.get("refresh.tokens.purged").counter().count();
+
+        // Act
+        long purged = purger.purge();
+
+        // Assert
+        assertEquals(5, purged);
+        assertEquals(1, refreshTokenRepository.count());
+        assertTrue(refreshTokenRepository.findById(live.getId()).isPresent());
+        assertEquals(5, meterRegistry.get("refresh.tokens.purged").counter().count() - purgedBefore);
+        assertTrue(meterRegistry.get("refresh.tokens.purge.duration").timer().count() > 0);
+        assertTrue(leaseRepository.findById(RefreshTokenPurger.LEASE).orElseThrow()
+                .getLeaseUntil().isBefore(Instant.now().plusSeconds(1)), "lease is released after the run");
+    }
+
+    @Test
+    void testPurge_DeletesExpiredAccessTokenRevocations() {
+        // Arrange
+        Instant now = Instant.now();
+        revokedAccessTokenRepository.save(new RevokedAccessToken(UUID.randomUUID(), UUID.randomUUID(),
+                now.minus(1, ChronoUnit.HOURS), now.minus(2, ChronoUnit.HOURS)));
+        RevokedAccessToken live = revokedAccessTokenRepository.save(new RevokedAccessToken(UUID.randomUUID(),
+                UUID.randomUUID(), now.plus(1, ChronoUnit.HOURS), now));
+
+        // Act
+        purger.purge();
+
+        // Assert
+        assertEquals(1, revokedAccessTokenRepository.count());
+        assertTrue(revokedAccessTokenRepository.existsById(live.getId()));
+    }
+
+    @Test
+    void testPurge_SkippedWhileAnotherNodeHoldsTheLease() {
+        // Arrange
+        save(Instant.now().minus(1, ChronoUnit.DAYS));
+        leaseRepository.save(new SchedulerLease(RefreshTokenPurger.LEASE, "other-node",
+                Instant.now().plus(5, ChronoUnit.MINUTES)));
+
+        // Act
+        long purged = purger.purge();
+
+        // Assert
+        assertEquals(-1, purged);
+        assertEquals(1, refreshTokenRepository.count());
+    }
+
+    @Test
+    void testPurge_TakesOverExpiredLease() {
+        // Arrange - the other node died and its lease ran out
+        save(Instant.now().minus(1, ChronoUnit.DAYS));
+        leaseRepository.save(new SchedulerLease(RefreshTokenPurger.LEASE, "dead-node",
+                Instant.now().minus(1, ChronoUnit.MINUTES)));
+
+        // Act
+        long purged = purger.purge();
+
+        // Assert
+        assertEquals(1, purged);
+        assertEquals(0, refreshTokenRepository.count());
+    }
+
+    private RefreshToken save(Instant expiresAt) {
+        return refreshTokenRepository.save(new RefreshToken(UUID.randomUUID().toString(), UUID.randomUUID(),
+                expiresAt));
+    }
+}
@@ -0,0 +1,182 @@
+package ru.balybin.monkey_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.balybin.monkey_backend.exception.UserException;
+import ru.balybin.monkey_backend.model.RefreshToken;
+import ru.balybin.monkey_backend.repository.RefreshTokenRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Без @Transactional: ротация и гонка должны видеть закоммиченные данные
+@SpringBootTest
+@ActiveProfiles("test")
+class RefreshTokenServiceIntegrationTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAll();
+    }
+
+    @Test
+    void testRotate_BumpsFamilyGenerationInPlace() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        RefreshTokenService.Issued original = refreshTokenService.create(userId);
+
+        // Act
+        RefreshTokenService.Issued rotated = refreshTokenService.rotate(original.token());
+
+        // Assert
+        assertEquals(userId, rotated.userId());
+        assertNotEquals(original.token(), rotated.token());
+        assertEquals(1, refreshTokenRepository.count());
+        RefreshToken family = refreshTokenRepository.findAll().get(0);
+        assertEquals(1, family.getGeneration());
+        assertNull(family.getToken());
+        assertEquals(rotated.expiresAt(), family.getExpiresAt());
+    }
+
+    @Test
+    void testRotate_OldTokenCannotBeReused() {
+        // Arrange
+        RefreshTokenService.Issued original = refreshTokenService.create(UUID.randomUUID());
+        RefreshTokenService.Issued rotated = refreshTokenService.rotate(original.token());
+
+        // Act & Assert
+        UserException exception = assertThrows(UserException.class,
+                () -> refreshTokenService.rotate(original.token()));
+        assertEquals("Invalid refresh token", exception.getMessage());
+        //повтор отвечается из памяти,текущий токен семейства по-прежнему работает
+        assertThrows(UserException.class, () -> refreshTokenService.rotate(original.token()));
+        assertNotNull(refreshTokenService.rotate(rotated.token()));
+    }
+
+    @Test
+    void testRotate_TamperedToken_IsInvalid() {
+        // Arrange
+        String token = refreshTokenService.create(UUID.randomUUID()).token();
+        //символ внутри payload: все его 6 бит значимые,в отличие от последнего символа подписи
+        char c = token.charAt(10);
+        String tampered = token.substring(0, 10) + (c == 'A' ? 'B' : 'A') + token.substring(11);
+
+        // Act & Assert
+        UserException exception = assertThrows(UserException.class, () -> refreshTokenService.rotate(tampered));
+        assertEquals("Invalid refresh token", exception.getMessage());
+    }
+
+    @Test
+    void testRotate_ExpiredSignedToken_RejectedWithoutTouchingFamily() {
+        // Arrange
+        RefreshTokenService.Issued issued = refreshTokenService.create(UUID.randomUUID());
+        RefreshToken family = refreshTokenRepository.findAll().get(0);
+        String expired = refreshTokenService.issue(issued.userId(), family.getId(), 0,
+                Instant.now().minusSeconds(60)).token();
+
+        // Act & Assert
+        UserException exception = assertThrows(UserException.class, () -> refreshTokenService.rotate(expired));
+        assertEquals("Refresh token expired", exception.getMessage());
+        assertEquals(0, refreshTokenRepository.findById(family.getId()).orElseThrow().getGeneration());
+    }
+
+    @Test
+    void testDelete_RevokesWholeFamily() {
+        // Arrange
+        RefreshTokenService.Issued original = refreshTokenService.create(UUID.randomUUID());
+        RefreshTokenService.Issued rotated = refreshTokenService.rotate(original.token());
+
+        // Act
+        refreshTokenService.delete(original.token());
+
+        // Assert
+        assertEquals(0, refreshTokenRepository.count());
+        assertThrows(UserException.class, () -> refreshTokenService.rotate(rotated.token()));
+    }
+
+    @Test
+    void testRotate_LegacyToken_BecomesFamily() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        refreshTokenRepository.save(new RefreshToken("legacy-token", userId, Instant.now().plusSeconds(3600)));
+
+        // Act
+        RefreshTokenService.Issued rotated = refreshTokenService.rotate("legacy-token");
+
+        // Assert
+        assertEquals(userId, rotated.userId());
+        RefreshToken family = refreshTokenRepository.findAll().get(0);
+        assertNull(family.getToken());
+        assertEquals(1, family.getGeneration());
+        assertThrows(UserException.class, () -> refreshTokenService.rotate("legacy-token"));
+        assertNotNull(refreshTokenService.rotate(rotated.token()));
+    }
+
+    @Test
+    void testRotate_ExpiredToken_IsDeleted() {
+        // Arrange
+        RefreshToken expired = refreshTokenRepository.save(
+                new RefreshToken("expired-token", UUID.randomUUID(), Instant.now().minusSeconds(60)));
+
+        // Act & Assert
+        UserException exception = assertThrows(UserException.class,
+                () -> refreshTokenService.rotate(expired.getToken()));
+        assertEquals("Refresh token expired", exception.getMessage());
+        assertEquals(0, refreshTokenRepository.count());
+    }
+
+    @Test
+    void testRotate_ConcurrentRequests_OnlyOneWins() throws Exception {
+        // Arrange
+        RefreshTokenService.Issued original = refreshTokenService.create(UUID.randomUUID());
+        int racers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(racers);
+        List<Future<Boolean>> results = new ArrayList<>();
+        Callable<Boolean> attempt = () -> {
+            start.await();
+            try {
+                refreshTokenService.rotate(original.token());
+                return true;
+            } catch (UserException e) {
+                return false;
+            }
+        };
+
+        // Act
+        for (int i = 0; i < racers; i++) {
+            results.add(pool.submit(attempt));
+        }
+        start.countDown();
+        int successes = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                successes++;
+            }
+        }
+        pool.shutdown();
+
+        // Assert
+        assertEquals(1, successes);
+        assertEquals(1, refreshTokenRepository.count());
+    }
+}
@@ -0,0 +1,140 @@
+package ru.balybin.monkey_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import ru.balybin.monkey_backend.DTO.response.TokenIntrospection;
+import ru.balybin.monkey_backend.config.RevokedAccessTokens;
+import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.config.TokenVersions;
+import ru.balybin.monkey_backend.config.VerifiedTokenCache;
+import ru.balybin.monkey_backend.exception.UserException;
+import ru.balybin.monkey_backend.model.TokenRevocation;
+import ru.balybin.monkey_backend.repository.RevokedAccessTokenRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenIntrospectionServiceTest {
+
+    private static final String SECRET = "testSecretKey123456789012345678901234567890";
+
+    private TokenProvider tokenProvider;
+    private VerifiedTokenCache tokenCache;
+    private TokenVersions tokenVersions;
+    private RevokedAccessTokenRepository revokedRepository;
+    private RevokedAccessTokens revokedAccessTokens;
+    private TokenIntrospectionService introspectionService;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new TokenProvider(SECRET);
+        tokenCache = new VerifiedTokenCache(true, 100, new SimpleMeterRegistry());
+        tokenVersions = new TokenVersions(null, 0, new SimpleMeterRegistry());
+        revokedRepository = mock(RevokedAccessTokenRepository.class);
+        revokedAccessTokens = new RevokedAccessTokens(revokedRepository, 0, 1000, 0.001, new SimpleMeterRegistry());
+        introspectionService = new TokenIntrospectionService(tokenProvider, tokenCache, tokenVersions,
+                revokedAccessTokens, 500);
+    }
+
+    @Test
+    void testVerify_MixedBatchKeepsOrder() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        String valid = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("test@example.com", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER")), userId);
+        String foreign = new TokenProvider("otherSecretKey12345678901234567890123456789")
+                .generateToken(new UsernamePasswordAuthenticationToken("evil@example.com", null), userId);
+
+        // Act
+        List<TokenIntrospection> results = introspectionService.verify(List.of("garbage", valid, foreign, ""));
+
+        // Assert
+        assertEquals(4, results.size());
+        assertFalse(results.get(0).isActive());
+        assertTrue(results.get(1).isActive());
+        assertEquals(userId, results.get(1).getUserId());
+        assertEquals("test@example.com", results.get(1).getEmail());
+        assertEquals(List.of("ROLE_USER"), results.get(1).getAuthorities());
+        assertNotNull(results.get(1).getExp());
+        assertFalse(results.get(2).isActive(), "token signed with another key");
+        assertFalse(results.get(3).isActive());
+        assertEquals(1, tokenCache.size(), "only the valid token is cached");
+    }
+
+    @Test
+    void testVerify_TokenIssuedBeforeLogoutAllIsInactive() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken("test@example.com", null);
+        String old = tokenProvider.generateToken(auth, userId, 0, 0);
+        assertTrue(introspectionService.verify(List.of(old)).get(0).isActive());
+
+        // Act
+        tokenVersions.revoked(new TokenRevocation(userId, 1, Instant.now()));
+        String fresh = tokenProvider.generateToken(auth, userId, 0, 1);
+        List<TokenIntrospection> results = introspectionService.verify(List.of(old, fresh));
+
+        // Assert - the cached verification of the old token does not bypass the version check
+        assertFalse(results.get(0).isActive());
+        assertTrue(results.get(1).isActive());
+    }
+
+    @Test
+    void testRevokeToken_OnlyOwnTokenAndThenInactive() {
+        // Arrange
+        UUID owner = UUID.randomUUID();
+        String token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("test@example.com", null),
+                owner);
+        when(revokedRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(revokedRepository.existsById(any())).thenReturn(true);
+
+        // Act & Assert - somebody else's token is refused
+        assertThrows(UserException.class, () -> introspectionService.revokeToken(UUID.randomUUID(), token));
+        assertThrows(UserException.class, () -> introspectionService.revokeToken(owner, "garbage"));
+        assertTrue(introspectionService.verify(List.of(token)).get(0).isActive());
+
+        // Act & Assert - the owner's revocation makes it inactive
+        introspectionService.revokeToken(owner, token);
+        assertFalse(introspectionService.verify(List.of(token)).get(0).isActive());
+    }
+
+    @Test
+    void testVerify_TooManyTokens() {
+        // Arrange
+        List<String> tokens = new ArrayList<>(Collections.nCopies(501, "t"));
+
+        // Act & Assert
+        assertThrows(UserException.class, () -> introspectionService.verify(tokens));
+    }
+
+    @Test
+    void testRevoke_OnlyTokensOfMissingUsers() {
+        // Arrange
+        UUID alive = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        List<TokenIntrospection> results = introspectionService.verify(List.of(
+                tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("a@example.com", null), alive),
+                tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("d@example.com", null), deleted),
+                tokenProvider.generateToken(new UsernamePasswordAuthenticationToken("d@example.com", null), deleted)));
+
+        // Act
+        List<UUID> ids = introspectionService.userIds(results);
+        List<TokenIntrospection> revoked = introspectionService.revoke(results, List.of(deleted));
+
+        // Assert
+        assertEquals(List.of(alive, deleted), ids);
+        assertTrue(revoked.get(0).isActive());
+        assertFalse(revoked.get(1).isActive());
+        assertFalse(revoked.get(2).isActive());
+    }
+}
@@ -0,0 +1,178 @@
+package ru.balybin.monkey_backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserSearchIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex(userRepository, true, 2, 0, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void testRebuild_LoadsAllPagesByKeyset() {
+        // Arrange
+        UserInfoResponse first = entry("alice@example.com");
+        UserInfoResponse second = entry("bob@example.com");
+        UserInfoResponse third = entry("carol@example.com");
+        when(userRepository.findSearchEntries(any(Pageable.class))).thenReturn(List.of(first, second));
+        when(userRepository.findSearchEntriesAfter(eq(second.getId()), any(Pageable.class))).thenReturn(List.of(third));
+
+        // Act
+        assertFalse(index.isReady());
+        index.rebuild();
+
+        // Assert
+        assertTrue(index.isReady());
+        assertEquals(3, index.size());
+        assertEquals(List.of("carol@example.com"), emails(index.search("CAROL", null, 10)));
+    }
+
+    @Test
+    void testSearch_PrefixMatchesFirstThenSubstring() {
+        // Arrange
+        build();
+        index.put(UUID.randomUUID(), "mark@example.com");
+        index.put(UUID.randomUUID(), "ann.marks@example.com");
+        index.put(UUID.randomUUID(), "marina@example.com");
+        index.put(UUID.randomUUID(), "john@example.com");
+
+        // Act
+        List<String> result = emails(index.search("mar", null, 10));
+
+        // Assert
+        assertEquals(List.of("marina@example.com", "mark@example.com", "ann.marks@example.com"), result);
+    }
+
+    @Test
+    void testSearch_AllTrigramsPresentButNotContiguous_NotMatched() {
+        // Arrange - "abcd" has the trigrams abc and bcd, but never in a row
+        build();
+        index.put(UUID.randomUUID(), "abcxbcd@example.com");
+
+        // Act & Assert
+        assertTrue(index.search("abcd", null, 10).isEmpty());
+    }
+
+    @Test
+    void testSearch_ShortQueryAndLimit() {
+        // Arrange
+        build();
+        for (int i = 0; i < 10; i++) {
+            index.put(UUID.randomUUID(), "user" + i + "@mail.com");
+        }
+
+        // Act & Assert
+        assertEquals(3, index.search("@m", null, 3).size());
+        assertEquals(10, index.search("@m", null, 50).size());
+        assertEquals(List.of("user7@mail.com"), emails(index.search("r7", null, 50)));
+    }
+
+    @Test
+    void testPut_EmailChange_OldEmailNoLongerFound() {
+        // Arrange
+        build();
+        UUID id = UUID.randomUUID();
+        index.put(id, "old.name@example.com");
+
+        // Act
+        index.put(id, "new.name@example.com");
+
+        // Assert
+        assertTrue(index.search("old.name", null, 10).isEmpty());
+        assertEquals(id, index.search("new.name", null, 10).get(0).getId());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testPut_DuringRebuild_IsNotLost() {
+        // Arrange
+        build();
+        UUID id = UUID.randomUUID();
+        when(userRepository.findSearchEntries(any(Pageable.class))).thenAnswer(invocation -> {
+            // registration that commits while the snapshot is being read
+            index.put(id, "late@example.com");
+            return List.of();
+        });
+
+        // Act
+        index.rebuild();
+
+        // Assert
+        assertEquals(id, index.search("late", null, 10).get(0).getId());
+    }
+
+    @Test
+    void testSearch_CursorWalksBothGroupsWithoutGapsOrRepeats() {
+        // Arrange
+        build();
+        List<String> all = List.of("ann@x.io", "anna@x.io", "joann@x.io", "marianne@x.io", "zoe.ann@x.io");
+        all.forEach(email -> index.put(UUID.randomUUID(), email));
+
+        // Act - two rows per page
+        List<String> walked = new ArrayList<>();
+        SearchCursor cursor = null;
+        List<UserInfoResponse> page;
+        do {
+            page = index.search("ann", cursor, 2);
+            walked.addAll(emails(page));
+            cursor = page.isEmpty() ? null : SearchCursor.after(page.get(page.size() - 1), "ann");
+        } while (page.size() == 2);
+
+        // Assert
+        assertEquals(all, walked);
+    }
+
+    @Test
+    void testSearch_BroadQueryUsesDictionaryScan() {
+        // Arrange - every email contains "mail", so walking the dictionary finds the page immediately
+        build();
+        for (int i = 0; i < 200; i++) {
+            index.put(UUID.randomUUID(), String.format("u%03d@mail.com", i));
+        }
+
+        // Act
+        List<UserInfoResponse> first = index.search("mail", null, 3);
+        List<UserInfoResponse> second = index.search("mail", SearchCursor.after(first.get(2), "mail"), 3);
+
+        // Assert
+        assertEquals(List.of("u000@mail.com", "u001@mail.com", "u002@mail.com"), emails(first));
+        assertEquals(List.of("u003@mail.com", "u004@mail.com", "u005@mail.com"), emails(second));
+    }
+
+    private void build() {
+        when(userRepository.findSearchEntries(any(Pageable.class))).thenReturn(List.of());
+        index.rebuild();
+    }
+
+    private static UserInfoResponse entry(String email) {
+        return new UserInfoResponse(UUID.randomUUID(), email);
+    }
+
+    private static List<String> emails(List<UserInfoResponse> users) {
+        return users.stream().map(UserInfoResponse::getEmail).toList();
+    }
+}
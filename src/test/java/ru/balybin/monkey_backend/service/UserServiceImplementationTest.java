@@ -1,22 +1,38 @@
 package ru.balybin.monkey_backend.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import ru.balybin.monkey_backend.config.TokenProvider;
+import ru.balybin.monkey_backend.DTO.request.UpdateProfileRequest;
+import ru.balybin.monkey_backend.DTO.response.UserBatchResponse;
+import ru.balybin.monkey_backend.DTO.response.UserInfoResponse;
+import ru.balybin.monkey_backend.DTO.response.UserProfileResponse;
+import ru.balybin.monkey_backend.DTO.response.UserSearchResponse;
+import ru.balybin.monkey_backend.config.TokenVersions;
 import ru.balybin.monkey_backend.config.UserMapper;
+import ru.balybin.monkey_backend.config.UserPrincipal;
 import ru.balybin.monkey_backend.exception.UserException;
+import ru.balybin.monkey_backend.model.TokenRevocation;
 import ru.balybin.monkey_backend.model.User;
 import ru.balybin.monkey_backend.repository.UserRepository;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,16 +41,27 @@ class UserServiceImplementationTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private TokenProvider tokenProvider;
-
     @Mock
     private UserMapper userMapper;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @InjectMocks
+    @Mock
+    private ProfileVersionCache profileVersionCache;
+
+    @Spy
+    private UserDirectoryCache userDirectoryCache = new UserDirectoryCache(100, 300, new SimpleMeterRegistry());
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenVersions tokenVersions;
+
     private UserServiceImplementation userService;
 
     private User testUser;
@@ -45,13 +72,20 @@ class UserServiceImplementationTest {
     void setUp() {
         testEmail = "test@example.com";
         testPassword = "password123";
-        
+        userService = userService(1000, 500);
+
         testUser = new User();
         testUser.setId(UUID.randomUUID());
         testUser.setEmail(testEmail);
         testUser.setPassword("encodedPassword");
     }
 
+    private UserServiceImplementation userService(int maxBatchSize, int batchChunkSize) {
+        return new UserServiceImplementation(userRepository, userMapper, passwordEncoder, profileVersionCache,
+                userDirectoryCache, userSearchIndex, refreshTokenService, tokenVersions,
+                maxBatchSize, batchChunkSize, 50);
+    }
+
     @Test
     void testRegisterUser_Success() {
         // Arrange
@@ -152,5 +186,273 @@ class UserServiceImplementationTest {
         assertTrue(exception.getMessage().contains("User not found with id"));
         verify(userRepository, times(1)).findById(userId);
     }
-}
 
+    @Test
+    void testFindUserProfile_FreshClaims_NoDatabaseLookup() {
+        // Arrange
+        UserPrincipal principal = new UserPrincipal(testEmail, testUser.getId(),
+                AuthorityUtils.NO_AUTHORITIES, null, 0L);
+        when(profileVersionCache.isClaimsBacked()).thenReturn(true);
+        when(profileVersionCache.current(testUser.getId())).thenReturn(0L);
+
+        // Act
+        UserProfileResponse result = userService.findUserProfile(principal);
+
+        // Assert
+        assertEquals(testUser.getId(), result.getId());
+        assertEquals(testEmail, result.getEmail());
+        verify(userRepository, never()).findById(any(UUID.class));
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void testFindUserProfile_StaleClaims_FallsBackToDatabase() {
+        // Arrange - profile was changed after the token had been issued
+        UserPrincipal principal = new UserPrincipal("old@example.com", testUser.getId(),
+                AuthorityUtils.NO_AUTHORITIES, null, 0L);
+        UserProfileResponse fromDb = new UserProfileResponse(testUser.getId(), testEmail);
+        when(profileVersionCache.isClaimsBacked()).thenReturn(true);
+        when(profileVersionCache.current(testUser.getId())).thenReturn(1L);
+        when(userRepository.findById(testUser.getId())).thenReturn(java.util.Optional.of(testUser));
+        when(userMapper.toProfileResponse(any(User.class))).thenReturn(fromDb);
+
+        // Act
+        UserProfileResponse result = userService.findUserProfile(principal);
+
+        // Assert
+        assertEquals(testEmail, result.getEmail());
+        verify(userRepository, times(1)).findById(testUser.getId());
+    }
+
+    @Test
+    void testUpdateUser_EmailChange_BumpsProfileVersion() {
+        // Arrange
+        UpdateProfileRequest request = new UpdateProfileRequest("new@example.com");
+        when(userRepository.findById(testUser.getId())).thenReturn(java.util.Optional.of(testUser));
+        doCallRealMethod().when(userMapper).updateUserFromRequest(any(User.class), eq(request));
+
+        // Act
+        userService.updateUser(testUser.getId(), request);
+
+        // Assert
+        verify(userRepository).updateEmail(testUser.getId(), "new@example.com", 1L);
+        verify(userRepository, never()).save(any(User.class));
+        verify(profileVersionCache, times(1)).update(testUser.getId(), 1L);
+    }
+
+    @Test
+    void testFindUsersByIds_ChunkedLookupKeepsOrderAndReportsMissing() {
+        // Arrange
+        userService = userService(1000, 2);
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
+        UUID id3 = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        when(userRepository.findByIdIn(any())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .filter(id -> !id.equals(missing))
+                    .map(id -> new User(id, id + "@example.com", "encodedPassword"))
+                    .toList();
+        });
+        when(userMapper.toInfoResponse(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            return new UserInfoResponse(user.getId(), user.getEmail());
+        });
+
+        // Act
+        UserBatchResponse result = userService.findUsersByIds(List.of(id3, id1, missing, id3, id2));
+
+        // Assert
+        assertEquals(List.of(id3, id1, id2), result.getUsers().stream().map(UserInfoResponse::getId).toList());
+        assertEquals(List.of(missing), result.getMissingIds());
+        verify(userRepository, times(2)).findByIdIn(any());
+        verify(userRepository, never()).findById(any(UUID.class));
+
+        // Second call is served from the cache, only the missing id goes to the database
+        userService.findUsersByIds(List.of(id1, id2, id3, missing));
+        verify(userRepository, times(3)).findByIdIn(any());
+        verify(userRepository).findByIdIn(List.of(missing));
+    }
+
+    @Test
+    void testFindUsersByIds_TooManyIds() {
+        // Arrange
+        userService = userService(2, 500);
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        // Act & Assert
+        assertThrows(UserException.class, () -> userService.findUsersByIds(ids));
+        verify(userRepository, never()).findByIdIn(any());
+    }
+
+    @Test
+    void testFindUserById_SecondCallServedFromCache() {
+        // Arrange
+        when(userRepository.findById(testUser.getId())).thenReturn(java.util.Optional.of(testUser));
+
+        // Act
+        User first = userService.findUserById(testUser.getId());
+        User second = userService.findUserById(testUser.getId());
+
+        // Assert
+        assertEquals(testEmail, second.getEmail());
+        assertNotSame(first, second);
+        verify(userRepository, times(1)).findById(testUser.getId());
+    }
+
+    @Test
+    void testUpdateUser_SameOrBlankEmail_KeepsProfileVersion() {
+        // Arrange
+        when(userRepository.findById(testUser.getId())).thenReturn(java.util.Optional.of(testUser));
+        doCallRealMethod().when(userMapper).updateUserFromRequest(any(User.class), any(UpdateProfileRequest.class));
+
+        // Act
+        userService.updateUser(testUser.getId(), new UpdateProfileRequest(testEmail));
+        userService.updateUser(testUser.getId(), new UpdateProfileRequest(" "));
+
+        // Assert
+        assertEquals(testEmail, testUser.getEmail());
+        verify(userRepository, times(2)).updateEmail(testUser.getId(), testEmail, 0L);
+        verify(profileVersionCache, times(2)).update(testUser.getId(), 0L);
+    }
+
+    @Test
+    void testFindUserByEmail_AfterUpdate_CacheInvalidated() {
+        // Arrange
+        String newEmail = "new@example.com";
+        when(userRepository.findByEmail(testEmail)).thenReturn(testUser);
+        when(userRepository.findById(testUser.getId())).thenReturn(java.util.Optional.of(testUser));
+        doCallRealMethod().when(userMapper).updateUserFromRequest(any(User.class), any(UpdateProfileRequest.class));
+        userService.findUserByEmail(testEmail);
+
+        // Act
+        userService.updateUser(testUser.getId(), new UpdateProfileRequest(newEmail));
+        when(userRepository.findById(testUser.getId())).thenReturn(java.util.Optional.of(
+                new User(testUser.getId(), newEmail, "encodedPassword")));
+
+        // Assert
+        // updateUser itself was served from the cache, the read after it has to go to the database
+        assertEquals(newEmail, userService.findUserById(testUser.getId()).getEmail());
+        verify(userRepository, times(1)).findById(testUser.getId());
+    }
+
+    @Test
+    void testSearchUser_IndexReady_ReturnsPageWithNextCursor() {
+        // Arrange
+        UserInfoResponse first = new UserInfoResponse(UUID.randomUUID(), "test1@example.com");
+        UserInfoResponse second = new UserInfoResponse(UUID.randomUUID(), "Test2@example.com");
+        UserInfoResponse extra = new UserInfoResponse(UUID.randomUUID(), "test3@example.com");
+        when(userSearchIndex.isReady()).thenReturn(true);
+        when(userSearchIndex.search("test", null, 3)).thenReturn(new ArrayList<>(List.of(first, second, extra)));
+
+        // Act
+        UserSearchResponse result = userService.searchUser("Test", null, 2);
+
+        // Assert - one extra row is fetched only to know that there is a next page
+        assertEquals(List.of(first, second), result.getUsers());
+        SearchCursor next = SearchCursor.decode(result.getNext());
+        assertEquals(new SearchCursor(true, "test2@example.com", second.getId()), next);
+        verify(userRepository, never()).searchByPrefix(anyString(), anyString(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void testSearchUser_LastPage_NoNextCursor() {
+        // Arrange
+        when(userSearchIndex.isReady()).thenReturn(true);
+        when(userSearchIndex.search("test", null, 21)).thenReturn(new ArrayList<>(List.of(
+                new UserInfoResponse(testUser.getId(), testEmail))));
+
+        // Act
+        UserSearchResponse result = userService.searchUser("test", null, 20);
+
+        // Assert
+        assertEquals(1, result.getUsers().size());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void testSearchUser_IndexNotReady_KeysetDatabaseQueries() {
+        // Arrange
+        when(userSearchIndex.isReady()).thenReturn(false);
+        when(userRepository.searchByPrefix(anyString(), anyString(), any(), any(Pageable.class))).thenReturn(List.of());
+        when(userRepository.searchBySubstring(anyString(), anyString(), anyString(), any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Act
+        userService.searchUser(" Te_st%", null, 1000);
+
+        // Assert - limit is clamped to auth.users.search.max-results, LIKE wildcards are escaped
+        UUID first = new UUID(0, 0);
+        verify(userRepository).searchByPrefix("te\\_st\\%%", "", first, PageRequest.of(0, 51));
+        verify(userRepository).searchBySubstring("%te\\_st\\%%", "te\\_st\\%%", "", first, PageRequest.of(0, 51));
+    }
+
+    @Test
+    void testSearchUser_SubstringCursor_SkipsPrefixGroup() {
+        // Arrange
+        UUID lastId = UUID.randomUUID();
+        String cursor = new SearchCursor(false, "a.test@example.com", lastId).encode();
+        when(userSearchIndex.isReady()).thenReturn(false);
+        when(userRepository.searchBySubstring(anyString(), anyString(), anyString(), any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Act
+        userService.searchUser("test", cursor, 10);
+
+        // Assert
+        verify(userRepository, never()).searchByPrefix(anyString(), anyString(), any(), any(Pageable.class));
+        verify(userRepository).searchBySubstring("%test%", "test%", "a.test@example.com", lastId, PageRequest.of(0, 11));
+    }
+
+    @Test
+    void testSearchUser_InvalidCursor() {
+        // Act & Assert
+        UserException exception = assertThrows(UserException.class,
+                () -> userService.searchUser("test", "not-a-cursor", 10));
+        assertEquals("Invalid search cursor", exception.getMessage());
+    }
+
+    @Test
+    void testRegisterUser_AddsUserToSearchIndex() {
+        // Arrange
+        User newUser = new User(null, testEmail, testPassword);
+        when(userRepository.existsByEmail(testEmail)).thenReturn(false);
+        when(passwordEncoder.encode(testPassword)).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        // Act
+        userService.registerUser(newUser);
+
+        // Assert
+        verify(userSearchIndex).put(testUser.getId(), testEmail);
+    }
+
+    @Test
+    void testLogoutEverywhere_Success() {
+        // Arrange
+        UUID userId = testUser.getId();
+        when(userRepository.revokeTokens(eq(userId), any(Instant.class))).thenReturn(1);
+        when(userRepository.findTokenVersionById(userId)).thenReturn(3L);
+
+        // Act
+        long version = userService.logoutEverywhere(userId);
+
+        // Assert
+        assertEquals(3, version);
+        verify(refreshTokenService).deleteAllForUser(userId);
+        verify(tokenVersions).revoked(argThat((TokenRevocation r) -> r.userId().equals(userId) && r.version() == 3));
+    }
+
+    @Test
+    void testLogoutEverywhere_UserNotFound() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        when(userRepository.revokeTokens(eq(userId), any(Instant.class))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(UserException.class, () -> userService.logoutEverywhere(userId));
+        verify(refreshTokenService, never()).deleteAllForUser(any());
+        verify(tokenVersions, never()).revoked(any());
+    }
+}